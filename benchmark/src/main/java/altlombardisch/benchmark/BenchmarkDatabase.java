@@ -0,0 +1,154 @@
+package altlombardisch.benchmark;
+
+import altlombardisch.CmsApplication;
+import altlombardisch.character.Character;
+import altlombardisch.character.CharacterDao;
+import altlombardisch.data.EntityManagerListener;
+import altlombardisch.siglum.Siglum;
+import altlombardisch.siglum.SiglumDao;
+import altlombardisch.siglum.SiglumType;
+import org.apache.wicket.ThreadContext;
+import org.apache.wicket.mock.MockApplication;
+import org.apache.wicket.resource.loader.ClassStringResourceLoader;
+import org.apache.wicket.util.tester.BaseWicketTester;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Starts the persistence unit against an in-memory database and fills it with benchmark data.
+ */
+public final class BenchmarkDatabase {
+    /**
+     * JDBC URL of the in-memory database. The database is kept until the JVM exits.
+     */
+    private static final String URL = "jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1;MODE=MySQL";
+
+    /**
+     * Length of the description text of generated siglums.
+     */
+    private static final int TEXT_LENGTH = 2000;
+
+    /**
+     * A tester providing a Wicket application for code depending on localized resources.
+     */
+    private static BaseWicketTester wicketTester;
+
+    /**
+     * Creates a benchmark database.
+     */
+    private BenchmarkDatabase() {
+    }
+
+    /**
+     * Starts the persistence unit against a new, empty in-memory database.
+     *
+     * @param secondLevelCache whether the second-level cache and the query cache are used
+     */
+    public static void start(boolean secondLevelCache) {
+        Map<String, String> properties = new HashMap<>();
+
+        properties.put("hibernate.connection.driver_class", "org.h2.Driver");
+        properties.put("hibernate.connection.url", URL);
+        properties.put("hibernate.connection.username", "sa");
+        properties.put("hibernate.connection.password", "");
+        properties.put("hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+        properties.put("hibernate.hbm2ddl.auto", "create");
+        properties.put("hibernate.cache.use_second_level_cache", String.valueOf(secondLevelCache));
+        properties.put("hibernate.cache.use_query_cache", String.valueOf(secondLevelCache));
+        EntityManagerListener.initialize(properties);
+    }
+
+    /**
+     * Closes the persistence unit.
+     */
+    public static void stop() {
+        EntityManagerListener.close();
+    }
+
+    /**
+     * Binds a Wicket application with the resources of the CMS application to the current thread. Data providers
+     * need it to resolve localized filter values.
+     */
+    public static void bindApplication() {
+        if (wicketTester == null) {
+            MockApplication application = new MockApplication();
+
+            wicketTester = new BaseWicketTester(application);
+            application.getResourceSettings().getStringResourceLoaders()
+                    .add(new ClassStringResourceLoader(CmsApplication.class));
+        }
+
+        ThreadContext.setApplication(wicketTester.getApplication());
+    }
+
+    /**
+     * Returns the name of a generated siglum.
+     *
+     * @param index index of the siglum
+     * @return A siglum name.
+     */
+    public static String getSiglumName(int index) {
+        return String.format("S%07d", index);
+    }
+
+    /**
+     * Persists a number of generated siglums.
+     *
+     * @param count number of siglums
+     * @return The persisted siglums.
+     */
+    public static List<Siglum> createSigla(int count) {
+        List<Siglum> sigla = new ArrayList<>();
+        SiglumType.Type[] types = SiglumType.Type.values();
+        StringBuilder textBuilder = new StringBuilder();
+
+        while (textBuilder.length() < TEXT_LENGTH) {
+            textBuilder.append("Lorem ipsum dolor sit amet, consetetur sadipscing elitr. ");
+        }
+
+        for (int i = 0; i < count; i++) {
+            Siglum siglum = new Siglum();
+
+            siglum.setName(getSiglumName(i));
+            siglum.setTaggedName(getSiglumName(i));
+            siglum.setType(types[i % types.length]);
+            siglum.setText(textBuilder.toString());
+            sigla.add(siglum);
+        }
+
+        return new SiglumDao().persistAll(sigla, null).getItems();
+    }
+
+    /**
+     * Returns the character string of a generated character.
+     *
+     * @param index index of the character
+     * @return A character string.
+     */
+    public static String getCharacterString(int index) {
+        return "c" + index;
+    }
+
+    /**
+     * Persists an alphabet of generated characters at the positions 1 to count.
+     *
+     * @param count number of characters
+     * @return The persisted characters.
+     */
+    public static List<Character> createCharacters(int count) {
+        List<Character> characters = new ArrayList<>();
+
+        for (int i = 0; i < count; i++) {
+            Character character = new Character();
+
+            character.setCharacter(getCharacterString(i));
+            character.setPosition(i + 1);
+            characters.add(character);
+        }
+
+        return new CharacterDao().persistAll(characters, null).getItems();
+    }
+}
@@ -0,0 +1,50 @@
+package altlombardisch.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs benchmarks and writes their results as JSON, so that runs can be compared with each other.
+ */
+public final class BenchmarkRunner {
+    /**
+     * Default file results are written to, relative to the working directory.
+     */
+    private static final String RESULT_FILE = "jmh-result.json";
+
+    /**
+     * Creates a benchmark runner.
+     */
+    private BenchmarkRunner() {
+    }
+
+    /**
+     * Runs benchmarks. Accepts the command line options of JMH, which override the default result format and file.
+     *
+     * @param arguments command line arguments
+     * @throws CommandLineOptionException if the command line arguments are invalid
+     * @throws RunnerException if a benchmark fails
+     */
+    public static void main(String[] arguments) throws CommandLineOptionException, RunnerException {
+        CommandLineOptions commandLineOptions = new CommandLineOptions(arguments);
+        OptionsBuilder optionsBuilder = new OptionsBuilder();
+
+        optionsBuilder.parent(commandLineOptions);
+
+        if (!commandLineOptions.getResultFormat().hasValue()) {
+            optionsBuilder.resultFormat(ResultFormatType.JSON);
+        }
+
+        if (!commandLineOptions.getResult().hasValue()) {
+            optionsBuilder.result(RESULT_FILE);
+        }
+
+        Options options = optionsBuilder.build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,193 @@
+package altlombardisch.benchmark;
+
+import altlombardisch.character.Character;
+import altlombardisch.character.CharacterDao;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures inserting, moving and removing characters, which shift the positions of other characters of the
+ * alphabet. The alphabet keeps its size across invocations.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@Fork(1)
+@Measurement(iterations = 5, time = 5)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 5)
+public class CharacterDaoBenchmark {
+    /**
+     * Number of characters in the alphabet.
+     */
+    @Param({"30", "100", "300"})
+    private int alphabetSize;
+
+    /**
+     * Data access object for characters.
+     */
+    private CharacterDao characterDao;
+
+    /**
+     * Index of the next generated character.
+     */
+    private int nextIndex;
+
+    /**
+     * Starts the database and persists an alphabet.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkDatabase.start(true);
+        BenchmarkDatabase.createCharacters(alphabetSize);
+        characterDao = new CharacterDao();
+        nextIndex = alphabetSize;
+    }
+
+    /**
+     * Stops the database.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkDatabase.stop();
+    }
+
+    /**
+     * Returns a random position within the alphabet.
+     *
+     * @return A position.
+     */
+    private int getRandomPosition() {
+        return ThreadLocalRandom.current().nextInt(alphabetSize) + 1;
+    }
+
+    /**
+     * Creates a new transient character at a random position.
+     *
+     * @return A character.
+     */
+    private Character createCharacter() {
+        Character newCharacter = new Character();
+
+        newCharacter.setCharacter(BenchmarkDatabase.getCharacterString(nextIndex++));
+        newCharacter.setPosition(getRandomPosition());
+        return newCharacter;
+    }
+
+    /**
+     * State of the insert benchmark. Removes the inserted character after each invocation. The tear down method
+     * takes no benchmark state, since JMH cannot inject the same state into setup and tear down methods of another
+     * state.
+     */
+    @State(Scope.Thread)
+    public static class InsertState {
+        /**
+         * The character to insert.
+         */
+        private Character character;
+
+        /**
+         * Data access object removing the inserted character.
+         */
+        private CharacterDao characterDao;
+
+        /**
+         * Creates the character to insert.
+         *
+         * @param benchmark benchmark state
+         */
+        @Setup(Level.Invocation)
+        public void setUp(CharacterDaoBenchmark benchmark) {
+            character = benchmark.createCharacter();
+            characterDao = benchmark.characterDao;
+        }
+
+        /**
+         * Removes the inserted character.
+         */
+        @TearDown(Level.Invocation)
+        public void tearDown() {
+            characterDao.remove(characterDao.findByCharacter(character.getCharacter()));
+        }
+    }
+
+    /**
+     * State of the move benchmark.
+     */
+    @State(Scope.Thread)
+    public static class MoveState {
+        /**
+         * The character to move.
+         */
+        private Character character;
+
+        /**
+         * Loads a random character and assigns a new random position.
+         *
+         * @param benchmark benchmark state
+         */
+        @Setup(Level.Invocation)
+        public void setUp(CharacterDaoBenchmark benchmark) {
+            int index = ThreadLocalRandom.current().nextInt(benchmark.alphabetSize);
+
+            character = benchmark.characterDao.findByCharacter(BenchmarkDatabase.getCharacterString(index));
+            character.setPosition(benchmark.getRandomPosition());
+        }
+    }
+
+    /**
+     * State of the remove benchmark. Inserts the removed character before each invocation.
+     */
+    @State(Scope.Thread)
+    public static class RemoveState {
+        /**
+         * The character to remove.
+         */
+        private Character character;
+
+        /**
+         * Inserts the character to remove.
+         *
+         * @param benchmark benchmark state
+         */
+        @Setup(Level.Invocation)
+        public void setUp(CharacterDaoBenchmark benchmark) {
+            Character newCharacter = benchmark.createCharacter();
+
+            benchmark.characterDao.persist(newCharacter);
+            character = benchmark.characterDao.findByCharacter(newCharacter.getCharacter());
+        }
+    }
+
+    /**
+     * Inserts a character at a random position.
+     *
+     * @param state insert state
+     */
+    @Benchmark
+    public void insert(InsertState state) {
+        characterDao.persist(state.character);
+    }
+
+    /**
+     * Moves a character to a random position.
+     *
+     * @param state move state
+     * @return The moved character.
+     */
+    @Benchmark
+    public Character move(MoveState state) {
+        return characterDao.merge(state.character);
+    }
+
+    /**
+     * Removes a character from a random position.
+     *
+     * @param state remove state
+     */
+    @Benchmark
+    public void remove(RemoveState state) {
+        characterDao.remove(state.character);
+    }
+}
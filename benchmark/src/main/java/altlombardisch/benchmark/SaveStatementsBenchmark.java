@@ -0,0 +1,232 @@
+package altlombardisch.benchmark;
+
+import altlombardisch.data.EntityManagerListener;
+import altlombardisch.siglum.Siglum;
+import altlombardisch.siglum.SiglumDao;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.*;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityTransaction;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
+
+/**
+ * Compares saves of detached siglums: the former double merge of SiglumDao, a single merge and the version-checked
+ * update SiglumDao performs now. Besides time, the number of JDBC statements per save is reported as the ratio of
+ * the statements and saves counters. The update is also measured for siglums which went through Java serialization
+ * and had their lazy text edited, like siglums of pages restored from the Wicket page store; the benchmark fails if
+ * such a save fails or loses the edited text.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations = 5, time = 5)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 5)
+public class SaveStatementsBenchmark {
+    /**
+     * Number of siglums in the database.
+     */
+    private static final int SIGLUM_COUNT = 1000;
+
+    /**
+     * Whether the second-level cache and the query cache are used.
+     */
+    @Param({"false", "true"})
+    private boolean secondLevelCache;
+
+    /**
+     * Latest persistent state of all siglums.
+     */
+    private Siglum[] sigla;
+
+    /**
+     * Statistics of the persistence unit.
+     */
+    private Statistics statistics;
+
+    /**
+     * Starts the database and persists siglums.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkDatabase.start(secondLevelCache);
+        List<Siglum> siglumList = BenchmarkDatabase.createSigla(SIGLUM_COUNT);
+        sigla = siglumList.toArray(new Siglum[siglumList.size()]);
+        statistics = EntityManagerListener.getStatistics();
+    }
+
+    /**
+     * Stops the database.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkDatabase.stop();
+    }
+
+    /**
+     * Counts JDBC statements and saves of an iteration.
+     */
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Counters {
+        /**
+         * Number of prepared JDBC statements.
+         */
+        public long statements;
+
+        /**
+         * Number of saves.
+         */
+        public long saves;
+
+        /**
+         * Resets the counters before an iteration.
+         */
+        @Setup(Level.Iteration)
+        public void reset() {
+            statements = 0;
+            saves = 0;
+        }
+    }
+
+    /**
+     * Saves a random siglum with a changed tagged name and counts the statements needed.
+     *
+     * @param counters statement and save counters
+     * @param save     save operation returning the saved siglum
+     * @return The saved siglum.
+     */
+    private Siglum save(Counters counters, UnaryOperator<Siglum> save) {
+        int index = ThreadLocalRandom.current().nextInt(SIGLUM_COUNT);
+        Siglum siglum = sigla[index];
+        long statementCount = statistics.getPrepareStatementCount();
+
+        siglum.setTaggedName("<b>" + siglum.getName() + "</b>" + System.nanoTime());
+        sigla[index] = save.apply(siglum);
+        counters.statements += statistics.getPrepareStatementCount() - statementCount;
+        counters.saves++;
+        return sigla[index];
+    }
+
+    /**
+     * Saves a siglum by merging it twice, like SiglumDao did before.
+     *
+     * @param counters statement and save counters
+     * @return The saved siglum.
+     */
+    @Benchmark
+    public Siglum doubleMerge(Counters counters) {
+        return save(counters, siglum -> merge(siglum, 2));
+    }
+
+    /**
+     * Saves a siglum by merging it once.
+     *
+     * @param counters statement and save counters
+     * @return The saved siglum.
+     */
+    @Benchmark
+    public Siglum singleMerge(Counters counters) {
+        return save(counters, siglum -> merge(siglum, 1));
+    }
+
+    /**
+     * Saves a siglum with the version-checked update of SiglumDao.
+     *
+     * @param counters statement and save counters
+     * @return The saved siglum.
+     */
+    @Benchmark
+    public Siglum update(Counters counters) {
+        return save(counters, siglum -> new SiglumDao().merge(siglum));
+    }
+
+    /**
+     * Saves a siglum with the version-checked update of SiglumDao after a serialization round trip and an edit of
+     * its text.
+     *
+     * @param counters statement and save counters
+     * @return The saved siglum.
+     */
+    @Benchmark
+    public Siglum deserializedUpdate(Counters counters) {
+        return save(counters, siglum -> {
+            Siglum deserializedSiglum = roundTrip(siglum);
+            String text = "Text " + System.nanoTime();
+
+            deserializedSiglum.setText(text);
+            Siglum savedSiglum = new SiglumDao().merge(deserializedSiglum);
+
+            if (!text.equals(savedSiglum.getText())) {
+                throw new IllegalStateException("The edited text of a siglum was not saved.");
+            }
+
+            return savedSiglum;
+        });
+    }
+
+    /**
+     * Copies a siglum by serializing and deserializing it.
+     *
+     * @param siglum a siglum
+     * @return The deserialized copy.
+     */
+    private static Siglum roundTrip(Siglum siglum) {
+        try {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+            try (ObjectOutputStream objectOutputStream = new ObjectOutputStream(outputStream)) {
+                objectOutputStream.writeObject(siglum);
+            }
+
+            try (ObjectInputStream objectInputStream = new ObjectInputStream(
+                    new ByteArrayInputStream(outputStream.toByteArray()))) {
+                return (Siglum) objectInputStream.readObject();
+            }
+        } catch (IOException | ClassNotFoundException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Merges a siglum a number of times in one transaction.
+     *
+     * @param siglum     a detached siglum
+     * @param mergeCount number of merges
+     * @return The merged siglum.
+     */
+    private static Siglum merge(Siglum siglum, int mergeCount) {
+        EntityManager entityManager = EntityManagerListener.createEntityManager();
+        EntityTransaction transaction = null;
+
+        try {
+            transaction = entityManager.getTransaction();
+            transaction.begin();
+            Siglum mergedSiglum = siglum;
+
+            for (int i = 0; i < mergeCount; i++) {
+                mergedSiglum = entityManager.merge(mergedSiglum);
+            }
+
+            transaction.commit();
+            return mergedSiglum;
+        } catch (RuntimeException e) {
+            if (transaction != null && transaction.isActive()) {
+                transaction.rollback();
+            }
+
+            throw e;
+        } finally {
+            entityManager.close();
+        }
+    }
+}
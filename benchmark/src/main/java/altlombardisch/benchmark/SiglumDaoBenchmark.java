@@ -0,0 +1,97 @@
+package altlombardisch.benchmark;
+
+import altlombardisch.siglum.Siglum;
+import altlombardisch.siglum.SiglumDao;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures finding and merging single siglums with and without the second-level cache.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@Fork(1)
+@Measurement(iterations = 5, time = 5)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 5)
+public class SiglumDaoBenchmark {
+    /**
+     * Number of siglums in the database.
+     */
+    @Param({"1000", "10000"})
+    private int siglumCount;
+
+    /**
+     * Whether the second-level cache and the query cache are used.
+     */
+    @Param({"true", "false"})
+    private boolean secondLevelCache;
+
+    /**
+     * Data access object for siglums.
+     */
+    private SiglumDao siglumDao;
+
+    /**
+     * Latest persistent state of all siglums.
+     */
+    private Siglum[] sigla;
+
+    /**
+     * Starts the database and persists siglums.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkDatabase.start(secondLevelCache);
+        List<Siglum> siglumList = BenchmarkDatabase.createSigla(siglumCount);
+        siglumDao = new SiglumDao();
+        sigla = siglumList.toArray(new Siglum[siglumList.size()]);
+    }
+
+    /**
+     * Stops the database.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkDatabase.stop();
+    }
+
+    /**
+     * Finds a random siglum by primary key.
+     *
+     * @return The found siglum.
+     */
+    @Benchmark
+    public Siglum find() {
+        return siglumDao.find(sigla[ThreadLocalRandom.current().nextInt(siglumCount)].getId());
+    }
+
+    /**
+     * Finds a random siglum by name.
+     *
+     * @return The found siglum.
+     */
+    @Benchmark
+    public Siglum findByName() {
+        return siglumDao.findByName(BenchmarkDatabase.getSiglumName(ThreadLocalRandom.current()
+                .nextInt(siglumCount)));
+    }
+
+    /**
+     * Changes the tagged name of a random siglum and merges it.
+     *
+     * @return The merged siglum.
+     */
+    @Benchmark
+    public Siglum merge() {
+        int index = ThreadLocalRandom.current().nextInt(siglumCount);
+        Siglum siglum = sigla[index];
+
+        siglum.setTaggedName("<b>" + siglum.getName() + "</b>" + System.nanoTime());
+        sigla[index] = siglumDao.merge(siglum);
+        return sigla[index];
+    }
+}
@@ -0,0 +1,77 @@
+package altlombardisch.benchmark;
+
+import altlombardisch.xml.XmlHelper;
+import org.openjdk.jmh.annotations.*;
+import org.w3c.dom.Document;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares extracting the text content of XML fragments with a new DOM per call, like XmlHelper did before, and
+ * with the reused streaming parser of XmlHelper, across markup sizes. The benchmark runs outside of a request cycle,
+ * so no text content is memoized.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations = 5, time = 5)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 5)
+public class TextContentBenchmark {
+    /**
+     * Number of tagged segments of the XML fragment.
+     */
+    @Param({"1", "10", "100", "1000"})
+    private int segmentCount;
+
+    /**
+     * The XML fragment.
+     */
+    private String xmlText;
+
+    /**
+     * Creates a XML fragment of tagged siglum names.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        StringBuilder builder = new StringBuilder();
+
+        for (int i = 0; i < segmentCount; i++) {
+            builder.append("<b>").append(BenchmarkDatabase.getSiglumName(i)).append("</b> <i>a &amp; b</i> ");
+        }
+
+        xmlText = builder.toString();
+    }
+
+    /**
+     * Extracts the text content with a new document builder and a full DOM.
+     *
+     * @return The text content.
+     * @throws ParserConfigurationException if no document builder can be created
+     * @throws IOException if the fragment cannot be read
+     * @throws SAXException if the fragment is malformed
+     */
+    @Benchmark
+    public String dom() throws ParserConfigurationException, IOException, SAXException {
+        Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder()
+                .parse(new InputSource(new StringReader("<document>" + xmlText + "</document>")));
+
+        return document.getDocumentElement().getTextContent();
+    }
+
+    /**
+     * Extracts the text content with the streaming parser of XmlHelper.
+     *
+     * @return The text content.
+     */
+    @Benchmark
+    public String streaming() {
+        return XmlHelper.getTextContent(xmlText);
+    }
+}
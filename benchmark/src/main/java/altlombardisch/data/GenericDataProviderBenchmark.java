@@ -0,0 +1,168 @@
+package altlombardisch.data;
+
+import altlombardisch.benchmark.BenchmarkDatabase;
+import altlombardisch.siglum.Siglum;
+import altlombardisch.siglum.SiglumRow;
+import org.apache.wicket.extensions.markup.html.repeater.util.SortParam;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures retrieving pages and counting rows of the siglum index table at various page depths and filters. The
+ * benchmark lives in the data package to reset the count cache between invocations.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@Fork(1)
+@Measurement(iterations = 5, time = 5)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 5)
+public class GenericDataProviderBenchmark {
+    /**
+     * Rows per page of data tables.
+     */
+    private static final int ROWS_PER_PAGE = 12;
+
+    /**
+     * Number of siglums in the database.
+     */
+    @Param({"20000"})
+    private int siglumCount;
+
+    /**
+     * Index of the retrieved page.
+     */
+    @Param({"0", "10", "100", "1000"})
+    private int page;
+
+    /**
+     * String filter of the data provider; an empty string means no filter. A filter matching a localized siglum
+     * type also matches siglums of this type.
+     */
+    @Param({"", "S001", "Prim"})
+    private String filter;
+
+    /**
+     * Starts the database and persists siglums.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkDatabase.start(true);
+        BenchmarkDatabase.createSigla(siglumCount);
+    }
+
+    /**
+     * Binds the Wicket application to the benchmark thread.
+     */
+    @Setup(Level.Iteration)
+    public void bindApplication() {
+        BenchmarkDatabase.bindApplication();
+    }
+
+    /**
+     * Stops the database.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkDatabase.stop();
+    }
+
+    /**
+     * Creates a data provider like the one of the siglum index page.
+     *
+     * @param keysetPaging whether keyset pagination is enabled
+     * @return A data provider.
+     */
+    private GenericDataProvider<SiglumRow> createDataProvider(boolean keysetPaging) {
+        GenericDataProvider<SiglumRow> dataProvider = new GenericDataProvider<>(Siglum.class, SiglumRow.class,
+                new SortParam<>("name", true), "id", "name", "type");
+
+        dataProvider.setKeysetPaging(keysetPaging);
+
+        if (!filter.isEmpty()) {
+            dataProvider.updateFilter(filter);
+        }
+
+        return dataProvider;
+    }
+
+    /**
+     * Consumes the rows of an iterator.
+     *
+     * @param iterator  row iterator
+     * @param blackhole consumer of rows
+     */
+    private static void consume(Iterator<SiglumRow> iterator, Blackhole blackhole) {
+        while (iterator.hasNext()) {
+            blackhole.consume(iterator.next());
+        }
+    }
+
+    /**
+     * State of the keyset benchmark. Holds a data provider that has just retrieved the page before the measured one.
+     */
+    @State(Scope.Thread)
+    public static class KeysetState {
+        /**
+         * A data provider positioned on the previous page.
+         */
+        private GenericDataProvider<SiglumRow> dataProvider;
+
+        /**
+         * Creates a data provider and retrieves the page before the measured one.
+         *
+         * @param benchmark benchmark state
+         */
+        @Setup(Level.Invocation)
+        public void setUp(GenericDataProviderBenchmark benchmark) {
+            dataProvider = benchmark.createDataProvider(true);
+            dataProvider.iterator(Math.max(benchmark.page - 1, 0) * ROWS_PER_PAGE, ROWS_PER_PAGE);
+        }
+    }
+
+    /**
+     * Retrieves a page with an offset.
+     *
+     * @param blackhole consumer of rows
+     */
+    @Benchmark
+    public void iteratorOffset(Blackhole blackhole) {
+        consume(createDataProvider(false).iterator(page * ROWS_PER_PAGE, ROWS_PER_PAGE), blackhole);
+    }
+
+    /**
+     * Retrieves a page by seeking from the last row of the previous page. For the first page, the page itself is
+     * retrieved again.
+     *
+     * @param state     keyset state
+     * @param blackhole consumer of rows
+     */
+    @Benchmark
+    public void iteratorKeyset(KeysetState state, Blackhole blackhole) {
+        consume(state.dataProvider.iterator(page * ROWS_PER_PAGE, ROWS_PER_PAGE), blackhole);
+    }
+
+    /**
+     * Counts rows after resetting the count cache.
+     *
+     * @return Number of rows.
+     */
+    @Benchmark
+    public long size() {
+        CountCache.invalidate(Siglum.class);
+        return createDataProvider(false).size();
+    }
+
+    /**
+     * Counts rows, usually answered by the count cache.
+     *
+     * @return Number of rows.
+     */
+    @Benchmark
+    public long sizeCached() {
+        return createDataProvider(false).size();
+    }
+}
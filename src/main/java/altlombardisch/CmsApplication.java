@@ -2,6 +2,12 @@ package altlombardisch;
 
 import altlombardisch.auth.SignInPage;
 import altlombardisch.auth.WebSession;
+import altlombardisch.data.RequestStatisticsRequestCycleListener;
+import altlombardisch.data.UnitOfWorkRequestCycleListener;
+import altlombardisch.metrics.MetricsRequestCycleListener;
+import altlombardisch.metrics.MetricsResource;
+import altlombardisch.metrics.ServerTimingRequestCycleListener;
+import altlombardisch.metrics.TimedSerializer;
 import altlombardisch.siglum.SiglumEditPage;
 import altlombardisch.siglum.SiglumIndexPage;
 import altlombardisch.siglum.SiglumViewPage;
@@ -24,6 +30,8 @@ import org.apache.wicket.authroles.authentication.AuthenticatedWebApplication;
 import org.apache.wicket.authroles.authorization.strategies.role.annotations.AnnotationsRoleAuthorizationStrategy;
 import org.apache.wicket.markup.html.SecurePackageResourceGuard;
 import org.apache.wicket.markup.html.WebPage;
+import org.apache.wicket.request.resource.IResource;
+import org.apache.wicket.request.resource.ResourceReference;
 import org.apache.wicket.settings.ExceptionSettings;
 
 /**
@@ -64,6 +72,14 @@ public class CmsApplication extends AuthenticatedWebApplication {
                         }
                     }
                 });
+        getRequestCycleListeners().add(new UnitOfWorkRequestCycleListener());
+        getRequestCycleListeners().add(new RequestStatisticsRequestCycleListener(
+                Integer.parseInt(getInitParameter("statistics.statementThreshold")),
+                Integer.parseInt(getInitParameter("statistics.repeatedStatementThreshold")),
+                Long.parseLong(getInitParameter("statistics.jdbcTimeThreshold"))));
+        getRequestCycleListeners().add(new MetricsRequestCycleListener());
+        getRequestCycleListeners().add(new ServerTimingRequestCycleListener());
+        getFrameworkSettings().setSerializer(new TimedSerializer(getFrameworkSettings().getSerializer()));
         getApplicationSettings().setAccessDeniedPage(AccessDeniedPage.class);
         getApplicationSettings().setPageExpiredErrorPage(PageExpiredPage.class);
 
@@ -85,9 +101,32 @@ public class CmsApplication extends AuthenticatedWebApplication {
         mountPage("/xml/XmlDocumentDefinitionEditPage", XmlDocumentDefinitionEditPage.class);
         mountPage("/xml/XmlTagDefinitionEditPage", XmlTagDefinitionEditPage.class);
         mountPage("/xml/XmlAttributeDefinitionEditPage", XmlAttributeDefinitionEditPage.class);
+        mountResource("/metrics", new ResourceReference("metrics") {
+            /**
+             * Determines if a deserialized file is compatible with this class.
+             */
+            private static final long serialVersionUID = 1L;
+
+            /**
+             * Returns the resource exporting metrics in the Prometheus text format.
+             *
+             * @return A metrics resource.
+             */
+            @Override
+            public IResource getResource() {
+                return new MetricsResource();
+            }
+        });
 
         // create needed XML document definitions
         new XmlDocumentDefinitionDao().initialize();
+
+        // seed an empty embedded database with generated data
+        int siglumCount = Integer.parseInt(getInitParameter("seed.siglumCount"));
+
+        if (siglumCount > 0) {
+            new SeedDataGenerator(siglumCount).generate();
+        }
     }
 
     /**
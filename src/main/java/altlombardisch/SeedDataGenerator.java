@@ -0,0 +1,247 @@
+package altlombardisch;
+
+import altlombardisch.character.Character;
+import altlombardisch.character.CharacterDao;
+import altlombardisch.data.EntityManagerListener;
+import altlombardisch.siglum.Siglum;
+import altlombardisch.siglum.SiglumDao;
+import altlombardisch.siglum.SiglumType;
+import altlombardisch.xml.attribute.XmlAttributeDefinition;
+import altlombardisch.xml.attribute.XmlAttributeDefinitionDao;
+import altlombardisch.xml.document.XmlDocumentDefinition;
+import altlombardisch.xml.document.XmlDocumentDefinitionDao;
+import altlombardisch.xml.tag.XmlTagDefinition;
+import altlombardisch.xml.tag.XmlTagDefinitionDao;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fills an empty database with generated sigla, characters and XML tag and attribute definitions, so that load tests
+ * and benchmarks can run against the embedded database of the embedded profile. The number of sigla sets the scale,
+ * e.g. 10000, 100000 or 1000000; the other entities are generated in fixed numbers which fit the forms of the CMS.
+ */
+public final class SeedDataGenerator {
+    /**
+     * A logger named corresponding to this class.
+     */
+    private static final Logger logger = LoggerFactory.getLogger(SeedDataGenerator.class);
+
+    /**
+     * Default number of characters.
+     */
+    public static final int DEFAULT_CHARACTER_COUNT = 100;
+
+    /**
+     * Default number of tag definitions per document definition.
+     */
+    public static final int DEFAULT_TAG_COUNT = 50;
+
+    /**
+     * Default number of attribute definitions per tag definition.
+     */
+    public static final int DEFAULT_ATTRIBUTE_COUNT = 5;
+
+    /**
+     * Number of sigla held in memory and persisted at once.
+     */
+    private static final int SLICE_SIZE = 10000;
+
+    /**
+     * Number of sigla.
+     */
+    private final int siglumCount;
+
+    /**
+     * Number of characters.
+     */
+    private final int characterCount;
+
+    /**
+     * Number of tag definitions per document definition.
+     */
+    private final int tagCount;
+
+    /**
+     * Number of attribute definitions per tag definition.
+     */
+    private final int attributeCount;
+
+    /**
+     * Creates a seed data generator with the default numbers of characters, tags and attributes.
+     *
+     * @param siglumCount number of sigla
+     */
+    public SeedDataGenerator(int siglumCount) {
+        this(siglumCount, DEFAULT_CHARACTER_COUNT, DEFAULT_TAG_COUNT, DEFAULT_ATTRIBUTE_COUNT);
+    }
+
+    /**
+     * Creates a seed data generator.
+     *
+     * @param siglumCount    number of sigla
+     * @param characterCount number of characters
+     * @param tagCount       number of tag definitions per document definition
+     * @param attributeCount number of attribute definitions per tag definition
+     */
+    public SeedDataGenerator(int siglumCount, int characterCount, int tagCount, int attributeCount) {
+        this.siglumCount = siglumCount;
+        this.characterCount = characterCount;
+        this.tagCount = tagCount;
+        this.attributeCount = attributeCount;
+    }
+
+    /**
+     * Seeds the database of the persistence unit, which is configured by the filtered persistence.xml. System
+     * properties starting with "hibernate." or "javax.persistence." override those of the persistence unit.
+     *
+     * @param arguments number of sigla, and optionally numbers of characters, tags and attributes
+     */
+    public static void main(String[] arguments) {
+        if (arguments.length < 1) {
+            System.err.println("Usage: SeedDataGenerator siglumCount [characterCount [tagCount [attributeCount]]]");
+            System.exit(1);
+        }
+
+        Map<String, String> properties = new HashMap<>();
+
+        for (String name : System.getProperties().stringPropertyNames()) {
+            if (name.startsWith("hibernate.") || name.startsWith("javax.persistence.")) {
+                properties.put(name, System.getProperty(name));
+            }
+        }
+
+        EntityManagerListener.initialize(properties);
+
+        try {
+            new XmlDocumentDefinitionDao().initialize();
+            new SeedDataGenerator(Integer.parseInt(arguments[0]),
+                    (arguments.length > 1) ? Integer.parseInt(arguments[1]) : DEFAULT_CHARACTER_COUNT,
+                    (arguments.length > 2) ? Integer.parseInt(arguments[2]) : DEFAULT_TAG_COUNT,
+                    (arguments.length > 3) ? Integer.parseInt(arguments[3]) : DEFAULT_ATTRIBUTE_COUNT).generate();
+        } finally {
+            EntityManagerListener.close();
+        }
+    }
+
+    /**
+     * Generates seed data unless the database already contains sigla. Document definitions must exist before.
+     *
+     * @throws RuntimeException
+     * @see XmlDocumentDefinitionDao#initialize()
+     */
+    public void generate() throws RuntimeException {
+        if (hasSigla()) {
+            logger.info("The database already contains sigla, no seed data is generated.");
+            return;
+        }
+
+        long startTime = System.currentTimeMillis();
+
+        generateCharacters();
+        generateXmlDefinitions();
+        generateSigla();
+        logger.info("Generated {} sigla, {} characters and {} tag definitions per document definition in {} ms.",
+                siglumCount, characterCount, tagCount, System.currentTimeMillis() - startTime);
+    }
+
+    /**
+     * Checks if the database contains sigla.
+     *
+     * @return True if at least one siglum exists; false otherwise.
+     */
+    private static Boolean hasSigla() {
+        EntityManager entityManager = EntityManagerListener.createEntityManager();
+
+        try {
+            return !entityManager.createQuery("SELECT s.id FROM Siglum s", Integer.class).setMaxResults(1)
+                    .getResultList().isEmpty();
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    /**
+     * Generates characters at the positions 1 to characterCount.
+     */
+    private void generateCharacters() {
+        List<Character> characters = new ArrayList<>();
+
+        for (int i = 0; i < characterCount; i++) {
+            Character character = new Character();
+
+            character.setCharacter(String.format("c%04d", i));
+            character.setPosition(i + 1);
+            characters.add(character);
+        }
+
+        new CharacterDao().persistAll(characters, null);
+    }
+
+    /**
+     * Generates tag definitions with attribute definitions for every document definition.
+     */
+    private void generateXmlDefinitions() {
+        XmlTagDefinitionDao tagDefinitionDao = new XmlTagDefinitionDao();
+        XmlAttributeDefinitionDao attributeDefinitionDao = new XmlAttributeDefinitionDao();
+
+        for (XmlDocumentDefinition documentDefinition : new XmlDocumentDefinitionDao().getAll()) {
+            List<XmlTagDefinition> tagDefinitions = new ArrayList<>();
+            List<XmlAttributeDefinition> attributeDefinitions = new ArrayList<>();
+
+            for (int i = 0; i < tagCount; i++) {
+                XmlTagDefinition tagDefinition = new XmlTagDefinition();
+
+                tagDefinition.setDocumentDefinition(documentDefinition);
+                tagDefinition.setName(String.format("tag%03d", i));
+                tagDefinition.setSelfClosing(i % 10 == 9);
+                tagDefinitions.add(tagDefinition);
+            }
+
+            for (XmlTagDefinition tagDefinition : tagDefinitionDao.persistAll(tagDefinitions, null).getItems()) {
+                for (int i = 0; i < attributeCount; i++) {
+                    XmlAttributeDefinition attributeDefinition = new XmlAttributeDefinition();
+
+                    attributeDefinition.setTagDefinition(tagDefinition);
+                    attributeDefinition.setName(String.format("attribute%02d", i));
+                    attributeDefinition.setRequired(i == 0);
+                    attributeDefinitions.add(attributeDefinition);
+                }
+            }
+
+            attributeDefinitionDao.persistAll(attributeDefinitions, null);
+        }
+    }
+
+    /**
+     * Generates sigla in slices, so that large numbers of sigla do not have to be held in memory at once.
+     */
+    private void generateSigla() {
+        SiglumDao siglumDao = new SiglumDao();
+        SiglumType.Type[] types = SiglumType.Type.values();
+
+        for (int start = 0; start < siglumCount; start += SLICE_SIZE) {
+            List<Siglum> sigla = new ArrayList<>();
+
+            for (int i = start; i < Math.min(start + SLICE_SIZE, siglumCount); i++) {
+                Siglum siglum = new Siglum();
+                String name = String.format("S%07d", i);
+
+                siglum.setName(name);
+                siglum.setTaggedName("<b>" + name + "</b>");
+                siglum.setType(types[i % types.length]);
+                siglum.setText("Generated siglum " + name + ". Lorem ipsum dolor sit amet, consetetur sadipscing " +
+                        "elitr, sed diam nonumy eirmod tempor invidunt ut labore et dolore magna aliquyam erat.");
+                sigla.add(siglum);
+            }
+
+            siglumDao.persistAll(sigla, null);
+            logger.info("Generated {} of {} sigla.", start + sigla.size(), siglumCount);
+        }
+    }
+}
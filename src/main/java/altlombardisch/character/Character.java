@@ -1,7 +1,9 @@
 package altlombardisch.character;
 
 import altlombardisch.data.DatedEntity;
+import altlombardisch.data.IdGenerator;
 import org.hibernate.annotations.*;
+import org.hibernate.annotations.Cache;
 
 import javax.persistence.*;
 import javax.persistence.Entity;
@@ -14,10 +16,11 @@ import java.util.UUID;
  * Represents a special character.
  */
 @BatchSize(size = 30)
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@Cacheable
 @DynamicUpdate
 @Entity
 @OptimisticLocking(type = OptimisticLockType.VERSION)
-@SelectBeforeUpdate
 @Table(name = "\"character\"", indexes = {
         @Index(columnList = "`character`", unique = true),
         @Index(columnList = "position", unique = true),
@@ -27,7 +30,10 @@ public class Character extends DatedEntity implements Serializable {
      * ID associated with a special character.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "character")
+    @TableGenerator(name = "character", table = IdGenerator.TABLE,
+            pkColumnName = IdGenerator.SEGMENT_COLUMN, valueColumnName = IdGenerator.VALUE_COLUMN,
+            pkColumnValue = "character", allocationSize = IdGenerator.ALLOCATION_SIZE)
     private Integer id;
 
     /**
@@ -50,9 +56,16 @@ public class Character extends DatedEntity implements Serializable {
     private String character;
 
     /**
-     * Position of a character.
+     * Sparse rank of a character. Ranks order characters and leave gaps between each other, so that a character can
+     * be inserted or moved by writing its own row only.
      */
     @Column(name = "position", nullable = false)
+    private Integer rank;
+
+    /**
+     * Position of a character in the alphabet, starting at 1. It is derived from the rank when characters are loaded.
+     */
+    @Transient
     private Integer position;
 
     /**
@@ -136,6 +149,24 @@ public class Character extends DatedEntity implements Serializable {
         this.character = character;
     }
 
+    /**
+     * Returns the rank of a character.
+     *
+     * @return Rank of a character.
+     */
+    public Integer getRank() {
+        return rank;
+    }
+
+    /**
+     * Sets the rank of a character.
+     *
+     * @param rank the rank of a character
+     */
+    public void setRank(Integer rank) {
+        this.rank = rank;
+    }
+
     /**
      * Returns the position of a character.
      *
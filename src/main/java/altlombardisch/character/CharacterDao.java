@@ -2,18 +2,22 @@ package altlombardisch.character;
 
 import altlombardisch.data.EntityManagerListener;
 import altlombardisch.data.GenericDao;
+import altlombardisch.data.ReadOnlyMode;
 import org.hibernate.StaleObjectStateException;
 import org.hibernate.UnresolvableObjectException;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.PersistenceContext;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.persistence.EntityManager;
 import javax.persistence.EntityTransaction;
 import javax.persistence.OptimisticLockException;
 import javax.persistence.TypedQuery;
-import javax.persistence.criteria.CriteriaBuilder;
-import javax.persistence.criteria.CriteriaQuery;
-import javax.persistence.criteria.Order;
-import javax.persistence.criteria.Root;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 /**
@@ -21,6 +25,18 @@ import java.util.UUID;
  * characters.
  */
 public class CharacterDao extends GenericDao<Character> implements ICharacterDao {
+    /**
+     * A logger named corresponding to this class.
+     */
+    private static final Logger logger = LoggerFactory.getLogger(CharacterDao.class);
+
+    /**
+     * Largest distance between the ranks of adjacent characters after rebalancing. Up to 16 characters can be
+     * inserted between two adjacent characters before their ranks run out of gaps. The distance shrinks if there are
+     * too many characters to spread them by it within the positive integer range.
+     */
+    private static final int RANK_GAP = 1 << 16;
+
     /**
      * Creates an instance of a CharacterDao.
      */
@@ -36,6 +52,270 @@ public class CharacterDao extends GenericDao<Character> implements ICharacterDao
         return character.getId() == null;
     }
 
+    /**
+     * Sets a UUID and assigns a rank placing a character at its position.
+     *
+     * @param entityManager entity manager with an active transaction
+     * @param character     a character
+     */
+    @Override
+    protected void persistEntity(EntityManager entityManager, Character character) {
+        if (character.getUuid() == null) {
+            character.setUuid(UUID.randomUUID().toString());
+        }
+
+        character.setRank(getRank(entityManager, character, null));
+        entityManager.persist(character);
+    }
+
+    /**
+     * Merges a character. If its position has changed, it is moved by assigning a rank between the ranks of its new
+     * neighbours.
+     *
+     * @param entityManager entity manager with an active transaction
+     * @param character     a character
+     * @return The merged character.
+     */
+    @Override
+    protected Character mergeEntity(EntityManager entityManager, Character character) {
+        if (character.getPosition() != null) {
+            TypedQuery<Integer> query = entityManager
+                    .createQuery("SELECT rank FROM Character WHERE id = :id", Integer.class);
+            Integer persistentRank = query.setParameter("id", character.getId()).getSingleResult();
+
+            character.setRank(getRank(entityManager, character, persistentRank));
+        }
+
+        return updateEntity(entityManager, character);
+    }
+
+    /**
+     * Removes a character. Ranks of other characters are unaffected.
+     *
+     * @param entityManager entity manager with an active transaction
+     * @param character     a character
+     */
+    @Override
+    protected void removeEntity(EntityManager entityManager, Character character) {
+        TypedQuery<Character> query = entityManager
+                .createQuery("FROM Character WHERE id = :id", Character.class);
+        query.setParameter("id", character.getId());
+        entityManager.remove(query.getSingleResult());
+    }
+
+    /**
+     * Returns a rank placing a character at its position. The rank lies between the ranks of the characters which
+     * become its neighbours, so that only the row of the character itself is written. If there is no gap between
+     * these ranks, subsequent characters are shifted to make room. All characters are rebalanced only if ranks would
+     * overflow.
+     *
+     * @param entityManager  entity manager with an active transaction
+     * @param character      a character
+     * @param persistentRank current rank of a persistent character, or null
+     * @return A rank.
+     * @throws IllegalStateException if no rank is left even after rebalancing
+     */
+    private Integer getRank(EntityManager entityManager, Character character, Integer persistentRank) {
+        Integer rank = findRank(entityManager, character, persistentRank);
+
+        if (rank == null) {
+            rebalance(entityManager, character.getId());
+            rank = findRank(entityManager, character, null);
+        }
+
+        if (rank == null) {
+            throw new IllegalStateException("No rank left for character " + character.getId()
+                    + " after rebalancing.");
+        }
+
+        return rank;
+    }
+
+    /**
+     * Finds a rank placing a character at its position without rebalancing. Appended characters and shifted ranks
+     * advance by at most RANK_GAP and by less if the remaining range of ranks is smaller.
+     *
+     * @param entityManager  entity manager with an active transaction
+     * @param character      a character
+     * @param persistentRank current rank of a persistent character, or null
+     * @return A rank, or null if ranks would overflow.
+     */
+    private Integer findRank(EntityManager entityManager, Character character, Integer persistentRank) {
+        // characters without a position are appended
+        Integer position = (character.getPosition() != null) ? character.getPosition() : Integer.MAX_VALUE;
+        List<Integer> neighbourRanks = getNeighbourRanks(entityManager, character.getId(), position);
+        Integer lowerRank = 0;
+        Integer upperRank = null;
+
+        if (position > 1) {
+            lowerRank = neighbourRanks.get(0);
+            upperRank = (neighbourRanks.size() > 1) ? neighbourRanks.get(1) : null;
+        } else if (!neighbourRanks.isEmpty()) {
+            upperRank = neighbourRanks.get(0);
+        }
+
+        if (persistentRank != null && persistentRank > lowerRank
+                && (upperRank == null || persistentRank < upperRank)) {
+            return persistentRank;
+        } else if (upperRank == null) {
+            int step = Math.min(RANK_GAP, (Integer.MAX_VALUE - lowerRank) / 2);
+
+            if (step > 0) {
+                return lowerRank + step;
+            }
+        } else if (upperRank - lowerRank > 1) {
+            return lowerRank + (upperRank - lowerRank) / 2;
+        } else {
+            Integer maximumRank = entityManager.createQuery("SELECT MAX(rank) FROM Character", Integer.class)
+                    .getSingleResult();
+            int offset = Math.min(RANK_GAP, Integer.MAX_VALUE - maximumRank);
+
+            if (offset > 1) {
+                if (character.getId() != null) {
+                    // park the moved character, so that shifted ranks can’t collide with its current rank
+                    entityManager.createQuery("UPDATE Character SET rank = 0 WHERE id = :id")
+                            .setParameter("id", character.getId()).executeUpdate();
+                }
+
+                shiftRanks(entityManager, upperRank, maximumRank, offset);
+                return lowerRank + offset / 2;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Shifts the ranks of all characters within a range of ranks by an offset with two bulk updates. The ranks are
+     * first moved to negative temporary values, so that the unique index on ranks is not violated by ranks of the
+     * range and ranks outside of it. Versions of shifted characters are incremented, characters are evicted from
+     * the second-level cache and managed characters are detached.
+     *
+     * @param entityManager entity manager with an active transaction
+     * @param minimumRank   lowest rank of the range
+     * @param maximumRank   highest rank of the range
+     * @param offset        offset added to ranks, which must keep them positive
+     */
+    private void shiftRanks(EntityManager entityManager, Integer minimumRank, Integer maximumRank, Integer offset) {
+        entityManager.flush();
+        entityManager.createQuery("UPDATE Character SET rank = -(rank + :offset), version = version + 1 " +
+                "WHERE rank BETWEEN :minimumRank AND :maximumRank").setParameter("offset", offset)
+                .setParameter("minimumRank", minimumRank).setParameter("maximumRank", maximumRank)
+                .executeUpdate();
+        entityManager.createQuery("UPDATE Character SET rank = -rank " +
+                "WHERE rank BETWEEN :minimumRank AND :maximumRank")
+                .setParameter("minimumRank", -(maximumRank + offset))
+                .setParameter("maximumRank", -(minimumRank + offset)).executeUpdate();
+        entityManager.getEntityManagerFactory().getCache().evict(Character.class);
+        detachCharacters(entityManager);
+    }
+
+    /**
+     * Detaches all managed characters after bulk updates, so that stale ranks and versions are not written back.
+     * Other entities of the persistence context stay managed.
+     *
+     * @param entityManager entity manager with an active transaction
+     */
+    private void detachCharacters(EntityManager entityManager) {
+        PersistenceContext persistenceContext = entityManager.unwrap(SessionImplementor.class)
+                .getPersistenceContext();
+
+        for (Map.Entry<Object, EntityEntry> entry : persistenceContext.reentrantSafeEntityEntries()) {
+            if (entry.getKey() instanceof Character) {
+                entityManager.detach(entry.getKey());
+            }
+        }
+    }
+
+    /**
+     * Returns the ranks of the characters before and after a position, not counting the character itself. The rank
+     * before the position is missing for the first position and the rank after it for the last one.
+     *
+     * @param entityManager entity manager with an active transaction
+     * @param id            ID of the character, or null
+     * @param position      position of the character
+     * @return A list of at most two ranks.
+     */
+    private List<Integer> getNeighbourRanks(EntityManager entityManager, Integer id, Integer position) {
+        TypedQuery<Integer> query = createRankQuery(entityManager, id, "ASC");
+        List<Integer> neighbourRanks = query.setFirstResult(Math.max(position - 2, 0))
+                .setMaxResults((position > 1) ? 2 : 1).getResultList();
+
+        if (position > 1 && neighbourRanks.isEmpty()) {
+            // a position after the end of the alphabet appends a character
+            neighbourRanks = createRankQuery(entityManager, id, "DESC").setMaxResults(1).getResultList();
+
+            if (neighbourRanks.isEmpty()) {
+                neighbourRanks = Collections.singletonList(0);
+            }
+        }
+
+        return neighbourRanks;
+    }
+
+    /**
+     * Creates a query for the ordered ranks of all characters except one.
+     *
+     * @param entityManager entity manager with an active transaction
+     * @param id            ID of the excluded character, or null
+     * @param direction     sort direction, ASC or DESC
+     * @return A typed query.
+     */
+    private TypedQuery<Integer> createRankQuery(EntityManager entityManager, Integer id, String direction) {
+        if (id == null) {
+            return entityManager.createQuery("SELECT rank FROM Character ORDER BY rank " + direction, Integer.class);
+        }
+
+        return entityManager.createQuery("SELECT rank FROM Character WHERE id <> :id ORDER BY rank " + direction,
+                Integer.class).setParameter("id", id);
+    }
+
+    /**
+     * Spreads the ranks of all characters evenly, keeping their order. This is only needed when shifting ranks would
+     * overflow. The distance between ranks is RANK_GAP or, for many characters, the largest distance which keeps the
+     * upper half of the positive integer range free for appending and shifting. The ranks are negated first, so that
+     * the unique index on ranks is not violated while they are reassigned, and are then reassigned by one bulk
+     * update. The excluded character keeps a non-positive rank until a new rank is assigned to it.
+     *
+     * @param entityManager entity manager with an active transaction
+     * @param excludedId    ID of a character which is going to be moved, or null
+     */
+    private void rebalance(EntityManager entityManager, Integer excludedId) {
+        entityManager.flush();
+        TypedQuery<Integer> idQuery;
+
+        if (excludedId == null) {
+            idQuery = entityManager.createQuery("SELECT id FROM Character ORDER BY rank", Integer.class);
+        } else {
+            idQuery = entityManager.createQuery("SELECT id FROM Character WHERE id <> :id ORDER BY rank",
+                    Integer.class).setParameter("id", excludedId);
+        }
+
+        List<Integer> ids = idQuery.getResultList();
+
+        logger.debug("Rebalancing ranks of {} characters.", ids.size());
+        entityManager.createQuery("UPDATE Character SET rank = -rank WHERE rank > 0").executeUpdate();
+
+        if (!ids.isEmpty()) {
+            // IDs are integers read from the database, so they are safe to inline
+            StringBuilder rankCase = new StringBuilder("CASE id");
+            int gap = (int) Math.min(RANK_GAP, Integer.MAX_VALUE / (2L * ids.size() + 2));
+            int rank = 0;
+
+            for (Integer id : ids) {
+                rank += gap;
+                rankCase.append(" WHEN ").append(id).append(" THEN ").append(rank);
+            }
+
+            rankCase.append(" END");
+            entityManager.createQuery("UPDATE Character SET rank = " + rankCase + ", version = version + 1 " +
+                    "WHERE id IN (:ids)").setParameter("ids", ids).executeUpdate();
+        }
+
+        entityManager.getEntityManagerFactory().getCache().evict(Character.class);
+        detachCharacters(entityManager);
+    }
+
     /**
      * {@inheritDoc}
      *
@@ -43,18 +323,15 @@ public class CharacterDao extends GenericDao<Character> implements ICharacterDao
      */
     @Override
     public void persist(Character character) throws RuntimeException {
-        EntityManager entityManager = EntityManagerListener.createEntityManager();
+        EntityManager entityManager = EntityManagerListener.createEntityManager(getClass(), "persist");
         EntityTransaction transaction = null;
 
-        if (character.getUuid() == null) {
-            character.setUuid(UUID.randomUUID().toString());
-        }
-
         try {
             transaction = entityManager.getTransaction();
             transaction.begin();
-            insertCharacter(entityManager, character);
+            persistEntity(entityManager, character);
             transaction.commit();
+            fireWrite();
         } catch (RuntimeException e) {
             e.printStackTrace();
 
@@ -81,19 +358,17 @@ public class CharacterDao extends GenericDao<Character> implements ICharacterDao
      */
     @Override
     public Character merge(Character character) throws RuntimeException {
-        EntityManager entityManager = EntityManagerListener.createEntityManager();
+        EntityManager entityManager = EntityManagerListener.createEntityManager(getClass(), "merge");
         EntityTransaction transaction = null;
 
         try {
             transaction = entityManager.getTransaction();
             transaction.begin();
-
-            TypedQuery<Character> query = entityManager
-                    .createQuery("FROM Character WHERE id = :id", Character.class);
-            query.setParameter("id", character.getId());
-            Character persistentCharacter = query.getSingleResult();
-            Character mergedCharacter = moveCharacter(entityManager, character, persistentCharacter);
+            Character mergedCharacter = mergeEntity(entityManager, character);
+            // flush before commit, so that a failed version check surfaces as OptimisticLockException
+            entityManager.flush();
             transaction.commit();
+            fireWrite();
             return mergedCharacter;
         } catch (RuntimeException e) {
             e.printStackTrace();
@@ -116,87 +391,6 @@ public class CharacterDao extends GenericDao<Character> implements ICharacterDao
         }
     }
 
-    /**
-     * Inserts a character at the specified position. Shifts subsequent elements
-     * to the right.
-     *
-     * @param entityManager entity manager interacting with the persistence context
-     * @param character     a character object
-     * @throws RuntimeException
-     */
-    private void insertCharacter(EntityManager entityManager, Character character) throws RuntimeException {
-        TypedQuery<Character> query = entityManager
-                .createQuery("FROM Character WHERE position >= :position ORDER BY position DESC", Character.class);
-        query.setParameter("position", character.getPosition());
-        List<Character> elements = query.getResultList();
-
-        for (Character element : elements) {
-            element.setPosition(element.getPosition() + 1);
-            entityManager.merge(element);
-            entityManager.flush();
-            entityManager.clear();
-        }
-
-        entityManager.persist(character);
-    }
-
-    /**
-     * Moves a persistent character to a new position.
-     *
-     * @param entityManager       entity manager interacting with the persistence context
-     * @param character           the new character
-     * @param persistentCharacter the persistent character
-     * @throws RuntimeException
-     */
-    private Character moveCharacter(EntityManager entityManager, Character character, Character persistentCharacter)
-            throws RuntimeException {
-        Integer position = character.getPosition();
-        Integer persistentPosition = persistentCharacter.getPosition();
-        Integer minPosition = Math.min(position, persistentPosition);
-        Integer maxPosition = Math.max(position, persistentPosition);
-
-        if (minPosition.equals(maxPosition)) {
-            return entityManager.merge(character);
-        }
-
-        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
-        CriteriaQuery<Character> criteriaQuery = builder.createQuery(Character.class);
-        Root<Character> root = criteriaQuery.from(Character.class);
-        criteriaQuery.select(root);
-        Order elementOrder;
-
-        if (position.equals(minPosition)) {
-            elementOrder = builder.desc(root.<Integer>get("position"));
-        } else {
-            elementOrder = builder.asc(root.<Integer>get("position"));
-        }
-
-        criteriaQuery.where(builder.and(builder.ge(root.<Integer>get("position"), minPosition)),
-                builder.le(root.<Integer>get("position"), maxPosition)).orderBy(elementOrder);
-        List<Character> elements = entityManager.createQuery(criteriaQuery).getResultList();
-
-        elements.remove(persistentCharacter);
-        character.setPosition(0);
-        character = entityManager.merge(character);
-        entityManager.flush();
-        entityManager.clear();
-
-        for (Character element : elements) {
-            if (position.equals(minPosition)) {
-                element.setPosition(maxPosition--);
-            } else {
-                element.setPosition(minPosition++);
-            }
-
-            entityManager.merge(element);
-            entityManager.flush();
-            entityManager.clear();
-        }
-
-        character.setPosition(position);
-        return entityManager.merge(character);
-    }
-
     /**
      * {@inheritDoc}
      *
@@ -204,39 +398,15 @@ public class CharacterDao extends GenericDao<Character> implements ICharacterDao
      */
     @Override
     public void remove(Character character) throws RuntimeException {
-        EntityManager entityManager = EntityManagerListener.createEntityManager();
+        EntityManager entityManager = EntityManagerListener.createEntityManager(getClass(), "remove");
         EntityTransaction transaction = null;
 
         try {
             transaction = entityManager.getTransaction();
             transaction.begin();
-
-            TypedQuery<Character> query = entityManager
-                    .createQuery("FROM Character WHERE id = :id", Character.class);
-            query.setParameter("id", character.getId());
-
-            Character persistentCharacter = query.getSingleResult();
-            CriteriaBuilder builder = entityManager.getCriteriaBuilder();
-            CriteriaQuery<Character> criteriaQuery = builder.createQuery(Character.class);
-            Root<Character> root = criteriaQuery.from(Character.class);
-            criteriaQuery.select(root);
-
-            criteriaQuery.where(builder.gt(root.<Integer>get("position"), persistentCharacter.getPosition()))
-                    .orderBy(builder.asc(root.<Integer>get("position")));
-            List<Character> elements = entityManager.createQuery(criteriaQuery).getResultList();
-
-            entityManager.remove(persistentCharacter);
-            entityManager.flush();
-            entityManager.clear();
-
-            for (Character element : elements) {
-                element.setPosition(element.getPosition() - 1);
-                entityManager.merge(element);
-                entityManager.flush();
-                entityManager.clear();
-            }
-
+            removeEntity(entityManager, character);
             transaction.commit();
+            fireWrite();
         } catch (RuntimeException e) {
             e.printStackTrace();
 
@@ -257,22 +427,29 @@ public class CharacterDao extends GenericDao<Character> implements ICharacterDao
      */
     @Override
     public Character findByCharacter(String characterString) throws RuntimeException {
-        EntityManager entityManager = EntityManagerListener.createEntityManager();
+        EntityManager entityManager = EntityManagerListener.createEntityManager(getClass(), "findByCharacter");
         EntityTransaction transaction = null;
 
         try {
             transaction = entityManager.getTransaction();
-            transaction.begin();
+            ReadOnlyMode.begin(entityManager, transaction);
             TypedQuery<Character> query = entityManager
                     .createQuery("FROM Character WHERE character = :character", Character.class);
+            setCacheable(query, "query.Character");
             List<Character> characterList = query.setParameter("character", characterString).getResultList();
-            transaction.commit();
-
-            if (characterList.isEmpty()) {
-                return null;
-            } else {
-                return characterList.get(0);
+            Character character = null;
+
+            if (!characterList.isEmpty()) {
+                character = characterList.get(0);
+                TypedQuery<Long> positionQuery = entityManager
+                        .createQuery("SELECT COUNT(*) FROM Character WHERE rank < :rank", Long.class);
+                setCacheable(positionQuery, "query.Character");
+                Long count = positionQuery.setParameter("rank", character.getRank()).getSingleResult();
+                character.setPosition(count.intValue() + 1);
             }
+
+            transaction.commit();
+            return character;
         } catch (RuntimeException e) {
             e.printStackTrace();
 
@@ -282,10 +459,22 @@ public class CharacterDao extends GenericDao<Character> implements ICharacterDao
 
             throw e;
         } finally {
+            ReadOnlyMode.end(entityManager);
             entityManager.close();
         }
     }
 
+    /**
+     * Creates the query used to stream all characters in order of position.
+     *
+     * @param entityManager entity manager running the query
+     * @return A typed query.
+     */
+    @Override
+    protected TypedQuery<Character> createStreamQuery(EntityManager entityManager) {
+        return entityManager.createQuery("FROM Character ORDER BY rank ASC", Character.class);
+    }
+
     /**
      * {@inheritDoc}
      *
@@ -293,16 +482,22 @@ public class CharacterDao extends GenericDao<Character> implements ICharacterDao
      */
     @Override
     public List<Character> getAll() throws RuntimeException {
-        EntityManager entityManager = EntityManagerListener.createEntityManager();
+        EntityManager entityManager = EntityManagerListener.createEntityManager(getClass(), "getAll");
         EntityTransaction transaction = null;
 
         try {
             transaction = entityManager.getTransaction();
-            transaction.begin();
+            ReadOnlyMode.begin(entityManager, transaction);
             TypedQuery<Character> query = entityManager
-                    .createQuery("FROM Character ORDER BY position ASC", Character.class);
+                    .createQuery("FROM Character ORDER BY rank ASC", Character.class);
+            setCacheable(query, "query.Character");
             List<Character> characterList = query.getResultList();
             transaction.commit();
+
+            for (int i = 0; i < characterList.size(); i++) {
+                characterList.get(i).setPosition(i + 1);
+            }
+
             return characterList;
         } catch (RuntimeException e) {
             e.printStackTrace();
@@ -313,6 +508,7 @@ public class CharacterDao extends GenericDao<Character> implements ICharacterDao
 
             throw e;
         } finally {
+            ReadOnlyMode.end(entityManager);
             entityManager.close();
         }
     }
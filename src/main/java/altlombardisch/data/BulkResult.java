@@ -0,0 +1,158 @@
+package altlombardisch.data;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The result of a bulk operation. Lists the items written successfully and the items which failed because of
+ * concurrent modifications.
+ *
+ * @param <T> item type
+ */
+public class BulkResult<T> implements Serializable {
+    /**
+     * Determines if a deserialized file is compatible with this class.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Total number of items.
+     */
+    private final int totalCount;
+
+    /**
+     * Items written successfully. For merge operations, these are the merged instances.
+     */
+    private final List<T> items = new ArrayList<>();
+
+    /**
+     * Items which failed.
+     */
+    private final List<Failure<T>> failures = new ArrayList<>();
+
+    /**
+     * Creates a bulk result.
+     *
+     * @param totalCount total number of items
+     */
+    BulkResult(int totalCount) {
+        this.totalCount = totalCount;
+    }
+
+    /**
+     * Adds items written successfully.
+     *
+     * @param items written items
+     */
+    void addItems(List<T> items) {
+        this.items.addAll(items);
+    }
+
+    /**
+     * Adds a failed item.
+     *
+     * @param item      failed item
+     * @param exception raised exception
+     */
+    void addFailure(T item, RuntimeException exception) {
+        failures.add(new Failure<>(item, exception));
+    }
+
+    /**
+     * Returns the total number of items.
+     *
+     * @return Total number of items.
+     */
+    public int getTotalCount() {
+        return totalCount;
+    }
+
+    /**
+     * Returns the number of items processed so far, including failed items.
+     *
+     * @return Number of processed items.
+     */
+    public int getCompletedCount() {
+        return items.size() + failures.size();
+    }
+
+    /**
+     * Returns the items written successfully.
+     *
+     * @return A list of items.
+     */
+    public List<T> getItems() {
+        return Collections.unmodifiableList(items);
+    }
+
+    /**
+     * Returns the items which failed because of concurrent modifications.
+     *
+     * @return A list of failures.
+     */
+    public List<Failure<T>> getFailures() {
+        return Collections.unmodifiableList(failures);
+    }
+
+    /**
+     * Checks if any item failed.
+     *
+     * @return True if at least one item failed; false otherwise.
+     */
+    public Boolean hasFailures() {
+        return !failures.isEmpty();
+    }
+
+    /**
+     * An item which could not be written.
+     *
+     * @param <T> item type
+     */
+    public static class Failure<T> implements Serializable {
+        /**
+         * Determines if a deserialized file is compatible with this class.
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The failed item.
+         */
+        private final T item;
+
+        /**
+         * The raised exception.
+         */
+        private final RuntimeException exception;
+
+        /**
+         * Creates a failure.
+         *
+         * @param item      failed item
+         * @param exception raised exception
+         */
+        Failure(T item, RuntimeException exception) {
+            this.item = item;
+            this.exception = exception;
+        }
+
+        /**
+         * Returns the failed item.
+         *
+         * @return The failed item.
+         */
+        public T getItem() {
+            return item;
+        }
+
+        /**
+         * Returns the raised exception.
+         *
+         * @return A runtime exception.
+         */
+        public RuntimeException getException() {
+            return exception;
+        }
+    }
+}
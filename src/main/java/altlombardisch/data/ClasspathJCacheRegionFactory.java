@@ -0,0 +1,51 @@
+package altlombardisch.data;
+
+import org.hibernate.cache.CacheException;
+import org.hibernate.cache.jcache.JCacheRegionFactory;
+
+import javax.cache.CacheManager;
+import javax.cache.spi.CachingProvider;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.Properties;
+
+/**
+ * A JCache region factory which resolves the cache configuration from the classpath. The configuration resource is
+ * named by property hibernate.javax.cache.uri.
+ */
+public class ClasspathJCacheRegionFactory extends JCacheRegionFactory {
+    /**
+     * Determines if a deserialized file is compatible with this class.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Creates a cache manager configured by a classpath resource.
+     *
+     * @param properties properties of the persistence unit
+     * @return A cache manager.
+     * @throws CacheException if the configuration resource is missing
+     */
+    @Override
+    protected CacheManager getCacheManager(Properties properties) {
+        CachingProvider cachingProvider = getCachingProvider(properties);
+        String resourceName = properties.getProperty(CONFIG_URI);
+
+        if (resourceName == null) {
+            return cachingProvider.getCacheManager();
+        }
+
+        URL resource = ClasspathJCacheRegionFactory.class.getClassLoader().getResource(resourceName);
+
+        if (resource == null) {
+            throw new CacheException("Cache configuration " + resourceName + " is missing.");
+        }
+
+        try {
+            return cachingProvider.getCacheManager(resource.toURI(), ClasspathJCacheRegionFactory.class
+                    .getClassLoader());
+        } catch (URISyntaxException e) {
+            throw new CacheException("Cache configuration " + resourceName + " is not resolvable.", e);
+        }
+    }
+}
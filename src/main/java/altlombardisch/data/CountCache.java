@@ -0,0 +1,240 @@
+package altlombardisch.data;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A cache for row counts of data providers. Counts are keyed by entity class and filter parameters and are
+ * invalidated when entities of a class are written through a DAO.
+ *
+ * @see GenericDataProvider
+ */
+final class CountCache {
+    /**
+     * Maximum number of cached counts.
+     */
+    private static final int MAXIMUM_SIZE = 1000;
+
+    /**
+     * Time in milliseconds after which a count expires, so that writes not made through a DAO are picked up.
+     */
+    private static final long TIME_TO_LIVE = 5L * 60L * 1000L;
+
+    /**
+     * Cached counts in access order.
+     */
+    private static final Map<Key, Entry> entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true) {
+        /**
+         * Determines if a deserialized file is compatible with this class.
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Removes the least recently used count if the cache is full.
+         *
+         * @param eldest least recently used entry
+         * @return True if the entry shall be removed; false otherwise.
+         */
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+            return size() > MAXIMUM_SIZE;
+        }
+    };
+
+    /**
+     * Number of invalidations per entity class. A count is only stored if no write happened while it was computed.
+     */
+    private static final Map<Class<?>, Long> generations = new HashMap<>();
+
+    static {
+        GenericDao.addWriteListener(CountCache::invalidate);
+    }
+
+    /**
+     * Prevents instantiation.
+     */
+    private CountCache() {
+    }
+
+    /**
+     * Returns the current generation of an entity class.
+     *
+     * @param entityClass entity class
+     * @return A generation number.
+     */
+    public static synchronized long getGeneration(Class<?> entityClass) {
+        return generations.getOrDefault(entityClass, 0L);
+    }
+
+    /**
+     * Returns a cached count.
+     *
+     * @param entityClass entity class
+     * @param parameters  filter parameters
+     * @return A cached count, or null.
+     */
+    public static synchronized Count get(Class<?> entityClass, List<Object> parameters) {
+        Key key = new Key(entityClass, parameters);
+        Entry entry = entries.get(key);
+
+        if (entry == null) {
+            return null;
+        } else if (System.currentTimeMillis() - entry.time > TIME_TO_LIVE) {
+            entries.remove(key);
+            return null;
+        }
+
+        return entry.count;
+    }
+
+    /**
+     * Stores a count unless entities of its class were written since a generation.
+     *
+     * @param entityClass entity class
+     * @param parameters  filter parameters
+     * @param generation  generation of the entity class before the count was computed
+     * @param count       row count
+     */
+    public static synchronized void put(Class<?> entityClass, List<Object> parameters, long generation,
+                                        Count count) {
+        if (generation == getGeneration(entityClass)) {
+            entries.put(new Key(entityClass, parameters), new Entry(count));
+        }
+    }
+
+    /**
+     * Removes all counts of an entity class.
+     *
+     * @param entityClass entity class
+     */
+    public static synchronized void invalidate(Class<?> entityClass) {
+        generations.merge(entityClass, 1L, Long::sum);
+        entries.keySet().removeIf(key -> key.entityClass.equals(entityClass));
+    }
+
+    /**
+     * A row count which is either exact or estimated from table statistics.
+     */
+    public static final class Count {
+        /**
+         * Number of rows.
+         */
+        private final long size;
+
+        /**
+         * Whether the number of rows is estimated.
+         */
+        private final boolean approximate;
+
+        /**
+         * Creates a row count.
+         *
+         * @param size        number of rows
+         * @param approximate whether the number of rows is estimated
+         */
+        public Count(long size, boolean approximate) {
+            this.size = size;
+            this.approximate = approximate;
+        }
+
+        /**
+         * Returns the number of rows.
+         *
+         * @return Number of rows.
+         */
+        public long getSize() {
+            return size;
+        }
+
+        /**
+         * Determines if the number of rows is estimated.
+         *
+         * @return True if the number of rows is estimated; false otherwise.
+         */
+        public boolean isApproximate() {
+            return approximate;
+        }
+    }
+
+    /**
+     * The key of a cached count.
+     */
+    private static final class Key {
+        /**
+         * Entity class.
+         */
+        private final Class<?> entityClass;
+
+        /**
+         * Filter parameters.
+         */
+        private final List<Object> parameters;
+
+        /**
+         * Creates a key.
+         *
+         * @param entityClass entity class
+         * @param parameters  filter parameters
+         */
+        Key(Class<?> entityClass, List<Object> parameters) {
+            this.entityClass = entityClass;
+            this.parameters = parameters;
+        }
+
+        /**
+         * Compares a key with another object.
+         *
+         * @param object another object
+         * @return True if both are equal; false otherwise.
+         */
+        @Override
+        public boolean equals(Object object) {
+            if (this == object) {
+                return true;
+            } else if (!(object instanceof Key)) {
+                return false;
+            }
+
+            Key key = (Key) object;
+            return entityClass.equals(key.entityClass) && parameters.equals(key.parameters);
+        }
+
+        /**
+         * Returns the hash code of a key.
+         *
+         * @return A hash code.
+         */
+        @Override
+        public int hashCode() {
+            return Objects.hash(entityClass, parameters);
+        }
+    }
+
+    /**
+     * A cached count with its creation time.
+     */
+    private static final class Entry {
+        /**
+         * Row count.
+         */
+        private final Count count;
+
+        /**
+         * Creation time in milliseconds.
+         */
+        private final long time;
+
+        /**
+         * Creates an entry.
+         *
+         * @param count row count
+         */
+        Entry(Count count) {
+            this.count = count;
+            this.time = System.currentTimeMillis();
+        }
+    }
+}
@@ -78,7 +78,34 @@ final class CriteriaHelper {
     }
 
     /**
-     * Returns an automatically created list of order objects for a property string.
+     * Returns the expression a property string refers to.
+     *
+     * @param root     query root referencing entities
+     * @param joins    map of joins
+     * @param property sort property
+     * @param <Y>      expression type
+     * @return An expression.
+     */
+    private static <Y> Expression<Y> getSortExpression(Root<?> root, Map<String, Join<?, ?>> joins,
+                                                       String property) {
+        String[] splitProperty = property.split("\\.");
+
+        if (Array.getLength(splitProperty) == 2) {
+            Join<?, ?> join = joins != null ? joins.get(splitProperty[0]) : null;
+
+            if (join != null) {
+                return join.get(splitProperty[1]);
+            } else {
+                throw new IllegalStateException("Join for sort property " + property + " is missing.");
+            }
+        } else {
+            return root.get(property);
+        }
+    }
+
+    /**
+     * Returns an automatically created list of order objects for a property string. Rows with equal sort values are
+     * ordered by ID, so that the order is stable and can be used for keyset pagination.
      *
      * @param criteriaBuilder constructor for criteria queries
      * @param root            query root referencing entities
@@ -91,28 +118,72 @@ final class CriteriaHelper {
     public static List<Order> getOrder(CriteriaBuilder criteriaBuilder, Root<?> root, Map<String, Join<?, ?>> joins,
                                        String property, Boolean isAscending, Class<?> typeClass) {
         List<Order> orderList = new ArrayList<>();
-        String[] splitProperty = property.split("\\.");
-        Expression<String> expression;
+        Expression<String> expression = getSortExpression(root, joins, property);
 
-        if (Array.getLength(splitProperty) == 2) {
-            Join<?, ?> join = joins.get(splitProperty[0]);
+        if (isAscending) {
+            orderList.add(criteriaBuilder.asc(expression));
 
-            if (join != null) {
-                expression = join.get(splitProperty[1]);
-            } else {
-                throw new IllegalStateException("Join for sort property " + property + " is missing.");
+            if (!property.equals("id")) {
+                orderList.add(criteriaBuilder.asc(root.get("id")));
             }
         } else {
-            expression = root.get(property);
+            orderList.add(criteriaBuilder.desc(expression));
+
+            if (!property.equals("id")) {
+                orderList.add(criteriaBuilder.desc(root.get("id")));
+            }
         }
 
+        return orderList;
+    }
+
+    /**
+     * Returns a keyset restriction which seeks rows following a sort key in sort direction. It is equivalent to
+     * {@code (property, id) > (sortValue, id)} for ascending and {@code (property, id) < (sortValue, id)} for
+     * descending order. An inclusive restriction also matches the row of the sort key.
+     *
+     * @param criteriaBuilder constructor for criteria queries
+     * @param root            query root referencing entities
+     * @param joins           map of joins
+     * @param property        sort property
+     * @param isAscending     sort direction
+     * @param sortValue       value of the sort property of the sort key
+     * @param id              ID of the sort key
+     * @param isInclusive     whether the row of the sort key is matched
+     * @param typeClass       data type
+     * @return An expression of type boolean.
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    public static Expression<Boolean> getKeysetRestriction(CriteriaBuilder criteriaBuilder, Root<?> root,
+                                                           Map<String, Join<?, ?>> joins, String property,
+                                                           Boolean isAscending, Object sortValue, Object id,
+                                                           Boolean isInclusive, Class<?> typeClass) {
+        Expression<Comparable> idExpression = root.get("id");
+        Comparable idValue = (Comparable) id;
+        Expression<Boolean> idRestriction;
+
         if (isAscending) {
-            orderList.add(criteriaBuilder.asc(expression));
+            idRestriction = isInclusive ? criteriaBuilder.greaterThanOrEqualTo(idExpression, idValue)
+                    : criteriaBuilder.greaterThan(idExpression, idValue);
         } else {
-            orderList.add(criteriaBuilder.desc(expression));
+            idRestriction = isInclusive ? criteriaBuilder.lessThanOrEqualTo(idExpression, idValue)
+                    : criteriaBuilder.lessThan(idExpression, idValue);
         }
 
-        return orderList;
+        if (property.equals("id")) {
+            return idRestriction;
+        }
+
+        Expression<Comparable> expression = getSortExpression(root, joins, property);
+        Comparable value = (Comparable) sortValue;
+
+        if (isAscending) {
+            return criteriaBuilder.or(criteriaBuilder.greaterThan(expression, value),
+                    criteriaBuilder.and(criteriaBuilder.equal(expression, value), idRestriction));
+        } else {
+            return criteriaBuilder.or(criteriaBuilder.lessThan(expression, value),
+                    criteriaBuilder.and(criteriaBuilder.equal(expression, value), idRestriction));
+        }
     }
 
     /**
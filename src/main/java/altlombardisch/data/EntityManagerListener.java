@@ -1,29 +1,42 @@
 package altlombardisch.data;
 
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.SecondLevelCacheStatistics;
+import org.hibernate.stat.Statistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import javax.persistence.EntityManager;
 import javax.persistence.EntityManagerFactory;
 import javax.persistence.Persistence;
 import javax.servlet.ServletContextEvent;
 import javax.servlet.ServletContextListener;
 import javax.servlet.annotation.WebListener;
+import java.util.Collections;
+import java.util.Map;
 
 /**
  * Listener for receiving notification events about ServletContext lifecycle changes.
  */
 @WebListener
 public class EntityManagerListener implements ServletContextListener {
+    /**
+     * A logger named corresponding to this class.
+     */
+    private static final Logger logger = LoggerFactory.getLogger(EntityManagerListener.class);
+
     /**
      * The entity manager factory.
      */
     private static EntityManagerFactory entityManagerFactory;
 
     /**
-     * Initializes the entity manager factory.
+     * Initializes the entity manager factory and the ID generator table.
      *
      * @param servletContextEvent event containing the ServletContext that is being initialized
      */
     public void contextInitialized(ServletContextEvent servletContextEvent) {
-        entityManagerFactory = Persistence.createEntityManagerFactory("persistence-unit");
+        initialize(Collections.emptyMap());
     }
 
     /**
@@ -32,19 +45,128 @@ public class EntityManagerListener implements ServletContextListener {
      * @param servletContextEvent event containing the ServletContext that is being destroyed
      */
     public void contextDestroyed(ServletContextEvent servletContextEvent) {
-        entityManagerFactory.close();
+        close();
+    }
+
+    /**
+     * Initializes the entity manager factory and the ID generator table outside of a servlet container. Properties
+     * override those of the persistence unit, e.g. to connect to an embedded database.
+     *
+     * @param properties properties overriding those of the persistence unit
+     */
+    public static void initialize(Map<String, ?> properties) {
+        entityManagerFactory = Persistence.createEntityManagerFactory("persistence-unit", properties);
+        IdGenerator.initialize(entityManagerFactory);
+    }
+
+    /**
+     * Logs cache and page statistics and closes the entity manager factory.
+     */
+    public static void close() {
+        if (entityManagerFactory != null) {
+            logCacheStatistics();
+            logPageStatistics();
+            entityManagerFactory.close();
+            entityManagerFactory = null;
+        }
     }
 
     /**
-     * Creates an entity manager.
+     * Creates an entity manager. If a unit of work is bound to the current thread, its entity manager is returned
+     * instead.
      *
      * @return An entity manager.
+     * @see UnitOfWork
      */
     public static EntityManager createEntityManager() {
+        UnitOfWork unitOfWork = UnitOfWork.get();
+
+        if (unitOfWork != null) {
+            return unitOfWork.getEntityManager();
+        }
+
+        return getEntityManagerFactory().createEntityManager();
+    }
+
+    /**
+     * Creates an entity manager for a DAO method call, which records the duration and failures of the call as
+     * metrics.
+     *
+     * @param daoClass   DAO class
+     * @param methodName name of the DAO method
+     * @return An entity manager.
+     * @see #createEntityManager()
+     */
+    public static EntityManager createEntityManager(Class<?> daoClass, String methodName) {
+        return TimedEntityManager.wrap(createEntityManager(), daoClass, methodName);
+    }
+
+    /**
+     * Creates an entity manager of its own for a DAO method call, which is never shared with a unit of work. Its
+     * persistence context can be cleared without detaching entities loaded by other DAO calls of the request.
+     *
+     * @param daoClass   DAO class
+     * @param methodName name of the DAO method
+     * @return An entity manager.
+     * @see #createEntityManager(Class, String)
+     */
+    public static EntityManager createDedicatedEntityManager(Class<?> daoClass, String methodName) {
+        return TimedEntityManager.wrap(getEntityManagerFactory().createEntityManager(), daoClass, methodName);
+    }
+
+    /**
+     * Returns the entity manager factory.
+     *
+     * @return An entity manager factory.
+     */
+    static EntityManagerFactory getEntityManagerFactory() {
         if (entityManagerFactory == null) {
             throw new IllegalStateException("Context is not yet initialized.");
         }
 
-        return entityManagerFactory.createEntityManager();
+        return entityManagerFactory;
+    }
+
+    /**
+     * Returns statistics of the persistence unit. They include hit, miss and put counts of the second-level cache
+     * regions and the query cache.
+     *
+     * @return Statistics of the persistence unit.
+     */
+    public static Statistics getStatistics() {
+        return getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+    }
+
+    /**
+     * Logs hit and miss counts of second-level cache regions and the query cache.
+     */
+    private static void logCacheStatistics() {
+        Statistics statistics = getStatistics();
+
+        for (String regionName : statistics.getSecondLevelCacheRegionNames()) {
+            SecondLevelCacheStatistics regionStatistics = statistics.getSecondLevelCacheStatistics(regionName);
+
+            logger.info("Cache region {}: {} hits, {} misses, {} puts.", regionName,
+                    regionStatistics.getHitCount(), regionStatistics.getMissCount(),
+                    regionStatistics.getPutCount());
+        }
+
+        logger.info("Query cache: {} hits, {} misses, {} puts.", statistics.getQueryCacheHitCount(),
+                statistics.getQueryCacheMissCount(), statistics.getQueryCachePutCount());
+    }
+
+    /**
+     * Logs aggregated request statistics of page classes.
+     */
+    private static void logPageStatistics() {
+        for (Map.Entry<String, PageStatistics> entry : PageStatistics.getAll().entrySet()) {
+            PageStatistics statistics = entry.getValue();
+
+            logger.info("Page {}: {} requests, {} statements ({} on average, {} at most), {} ms in JDBC, {} "
+                    + "entities loaded, {} collections fetched.", entry.getKey(), statistics.getRequestCount(),
+                    statistics.getStatementCount(), String.format("%.1f", statistics.getAverageStatementCount()),
+                    statistics.getMaximumStatementCount(), statistics.getJdbcTime(),
+                    statistics.getEntityLoadCount(), statistics.getCollectionFetchCount());
+        }
     }
 }
@@ -0,0 +1,126 @@
+package altlombardisch.data;
+
+import javax.persistence.EntityGraph;
+import javax.persistence.EntityManager;
+import javax.persistence.Subgraph;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A fetch plan describing which associations are loaded along with an entity. It refers either to a named entity
+ * graph or lists attribute paths like "tagDefinitions.attributeDefinitions" for a dynamic entity graph.
+ *
+ * @see IDao#find(Object, FetchPlan)
+ * @see IDao#getAll(FetchPlan)
+ */
+public final class FetchPlan implements Serializable {
+    /**
+     * Determines if a deserialized file is compatible with this class.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Name of a named entity graph, or null.
+     */
+    private final String graphName;
+
+    /**
+     * Attribute paths of a dynamic entity graph.
+     */
+    private final List<String> attributePaths;
+
+    /**
+     * Creates a fetch plan.
+     *
+     * @param graphName      name of a named entity graph, or null
+     * @param attributePaths attribute paths of a dynamic entity graph
+     */
+    private FetchPlan(String graphName, List<String> attributePaths) {
+        this.graphName = graphName;
+        this.attributePaths = attributePaths;
+    }
+
+    /**
+     * Creates a fetch plan for a named entity graph.
+     *
+     * @param graphName name of an entity graph declared with @NamedEntityGraph
+     * @return A fetch plan.
+     */
+    public static FetchPlan named(String graphName) {
+        return new FetchPlan(graphName, Collections.emptyList());
+    }
+
+    /**
+     * Creates a fetch plan for a dynamic entity graph. Nested attributes are separated by dots.
+     *
+     * @param attributePaths attribute paths
+     * @return A fetch plan.
+     */
+    public static FetchPlan of(String... attributePaths) {
+        return new FetchPlan(null, Collections.unmodifiableList(Arrays.asList(attributePaths)));
+    }
+
+    /**
+     * Returns the entity graph of this fetch plan for an entity manager.
+     *
+     * @param entityManager entity manager the graph is used with
+     * @param entityClass   root entity class
+     * @param <E>           entity type
+     * @return An entity graph.
+     */
+    @SuppressWarnings("unchecked")
+    <E> EntityGraph<E> getEntityGraph(EntityManager entityManager, Class<E> entityClass) {
+        if (graphName != null) {
+            return (EntityGraph<E>) entityManager.getEntityGraph(graphName);
+        }
+
+        EntityGraph<E> entityGraph = entityManager.createEntityGraph(entityClass);
+        Map<String, Subgraph<?>> subgraphs = new HashMap<>();
+
+        for (String attributePath : attributePaths) {
+            String[] attributeNames = attributePath.split("\\.");
+            Subgraph<?> subgraph = null;
+            String prefix = "";
+
+            for (int i = 0; i < attributeNames.length; i++) {
+                String attributeName = attributeNames[i];
+                boolean isLast = (i == attributeNames.length - 1);
+                prefix = prefix.isEmpty() ? attributeName : prefix + "." + attributeName;
+
+                if (isLast && !subgraphs.containsKey(prefix)) {
+                    if (subgraph == null) {
+                        entityGraph.addAttributeNodes(attributeName);
+                    } else {
+                        subgraph.addAttributeNodes(attributeName);
+                    }
+                } else if (!isLast) {
+                    Subgraph<?> nextSubgraph = subgraphs.get(prefix);
+
+                    if (nextSubgraph == null) {
+                        nextSubgraph = (subgraph == null) ? entityGraph.addSubgraph(attributeName)
+                                : subgraph.addSubgraph(attributeName);
+                        subgraphs.put(prefix, nextSubgraph);
+                    }
+
+                    subgraph = nextSubgraph;
+                }
+            }
+        }
+
+        return entityGraph;
+    }
+
+    /**
+     * Returns a string representation of this fetch plan.
+     *
+     * @return A string representation.
+     */
+    @Override
+    public String toString() {
+        return (graphName != null) ? graphName : attributePaths.toString();
+    }
+}
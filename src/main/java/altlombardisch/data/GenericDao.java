@@ -5,8 +5,19 @@ import altlombardisch.ui.page.UnresolvableObjectErrorPage;
 import org.apache.wicket.Page;
 import org.apache.wicket.RestartResponseException;
 import org.apache.wicket.request.cycle.RequestCycle;
+import org.hibernate.CacheMode;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
 import org.hibernate.StaleObjectStateException;
 import org.hibernate.UnresolvableObjectException;
+import org.hibernate.annotations.QueryHints;
+import org.hibernate.bytecode.enhance.spi.interceptor.LazyAttributeLoadingInterceptor;
+import org.hibernate.bytecode.spi.BytecodeEnhancementMetadata;
+import org.hibernate.engine.spi.SelfDirtinessTracker;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.query.Query;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -14,8 +25,16 @@ import javax.persistence.EntityManager;
 import javax.persistence.EntityTransaction;
 import javax.persistence.OptimisticLockException;
 import javax.persistence.TypedQuery;
+import java.io.Serializable;
 import java.lang.reflect.ParameterizedType;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Implements methods from interface IDao.
@@ -29,6 +48,28 @@ public abstract class GenericDao<E> implements IDao<E> {
      */
     private static final Logger logger = LoggerFactory.getLogger(GenericDao.class);
 
+    /**
+     * Chunk size of bulk operations used if hibernate.jdbc.batch_size is not set.
+     */
+    private static final int DEFAULT_BATCH_SIZE = 30;
+
+    /**
+     * Number of rows fetched per round trip and number of entities after which the persistence context is cleared
+     * while streaming.
+     */
+    private static final int STREAM_FETCH_SIZE = 100;
+
+    /**
+     * Query hint applying an entity graph as load graph. Attributes of the graph are fetched eagerly, other
+     * attributes according to their mapping.
+     */
+    private static final String LOAD_GRAPH_HINT = "javax.persistence.loadgraph";
+
+    /**
+     * Listeners notified about writes.
+     */
+    private static final List<IWriteListener> writeListeners = new CopyOnWriteArrayList<>();
+
     /**
      * The class of the entity.
      */
@@ -50,14 +91,18 @@ public abstract class GenericDao<E> implements IDao<E> {
      * @throws RuntimeException
      */
     public E merge(E entity) throws RuntimeException {
-        EntityManager entityManager = EntityManagerListener.createEntityManager();
+        EntityManager entityManager = EntityManagerListener.createEntityManager(getClass(), "merge");
         EntityTransaction transaction = null;
 
         try {
             transaction = entityManager.getTransaction();
             transaction.begin();
-            E mergedEntity = entityManager.merge(entity);
+            E mergedEntity = mergeEntity(entityManager, entity);
+            // flush before commit, so that a failed version check surfaces as OptimisticLockException
+            entityManager.flush();
+            initializeLazyAttributes(mergedEntity);
             transaction.commit();
+            fireWrite();
             return mergedEntity;
         } catch (RuntimeException e) {
             e.printStackTrace();
@@ -86,14 +131,15 @@ public abstract class GenericDao<E> implements IDao<E> {
      * @throws RuntimeException
      */
     public void remove(E entity) throws RuntimeException {
-        EntityManager entityManager = EntityManagerListener.createEntityManager();
+        EntityManager entityManager = EntityManagerListener.createEntityManager(getClass(), "remove");
         EntityTransaction transaction = null;
 
         try {
             transaction = entityManager.getTransaction();
             transaction.begin();
-            entityManager.remove(entityManager.merge(entity));
+            removeEntity(entityManager, entity);
             transaction.commit();
+            fireWrite();
         } catch (RuntimeException e) {
             e.printStackTrace();
 
@@ -113,7 +159,7 @@ public abstract class GenericDao<E> implements IDao<E> {
      * @throws RuntimeException
      */
     public void removeByPrimaryKey(Object primaryKey) {
-        EntityManager entityManager = EntityManagerListener.createEntityManager();
+        EntityManager entityManager = EntityManagerListener.createEntityManager(getClass(), "removeByPrimaryKey");
         EntityTransaction transaction = null;
 
         try {
@@ -122,6 +168,7 @@ public abstract class GenericDao<E> implements IDao<E> {
             E entity = entityManager.find(entityClass, primaryKey);
             entityManager.remove(entity);
             transaction.commit();
+            fireWrite();
         } catch (RuntimeException e) {
             e.printStackTrace();
 
@@ -135,13 +182,335 @@ public abstract class GenericDao<E> implements IDao<E> {
         }
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * @throws RuntimeException
+     */
+    public BulkResult<E> persistAll(Collection<E> entities, IBulkProgressListener listener)
+            throws RuntimeException {
+        return processAll(entities, (entityManager, entity) -> {
+            persistEntity(entityManager, entity);
+            return entity;
+        }, false, listener);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws RuntimeException
+     */
+    public BulkResult<E> mergeAll(Collection<E> entities, IBulkProgressListener listener) throws RuntimeException {
+        return processAll(entities, this::mergeEntity, true, listener);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws RuntimeException
+     */
+    public BulkResult<E> removeAll(Collection<E> entities, IBulkProgressListener listener) throws RuntimeException {
+        return processAll(entities, (entityManager, entity) -> {
+            removeEntity(entityManager, entity);
+            return entity;
+        }, true, listener);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws RuntimeException
+     */
+    public BulkResult<Object> removeByIds(Collection<?> primaryKeys, IBulkProgressListener listener)
+            throws RuntimeException {
+        return processAll(new ArrayList<Object>(primaryKeys), (entityManager, primaryKey) -> {
+            E entity = entityManager.find(entityClass, primaryKey);
+
+            if (entity != null) {
+                removeEntity(entityManager, entity);
+            }
+
+            return primaryKey;
+        }, true, listener);
+    }
+
+    /**
+     * Makes an instance managed and persistent within a running transaction. Subclasses override this to prepare
+     * instances, e.g. by setting a UUID.
+     *
+     * @param entityManager entity manager with an active transaction
+     * @param entity        entity instance
+     */
+    protected void persistEntity(EntityManager entityManager, E entity) {
+        entityManager.persist(entity);
+    }
+
+    /**
+     * Merges the state of an entity into the persistence context within a running transaction. By default, a
+     * detached entity is updated without loading it first.
+     *
+     * @param entityManager entity manager with an active transaction
+     * @param entity        entity instance
+     * @return The managed instance that the state was merged to.
+     * @see #updateEntity(EntityManager, Object)
+     */
+    protected E mergeEntity(EntityManager entityManager, E entity) {
+        return updateEntity(entityManager, entity);
+    }
+
+    /**
+     * Reattaches a detached entity within a running transaction, so that it is written by a single UPDATE statement
+     * on flush. The statement is restricted to the version of the detached entity, so concurrent modifications fail
+     * with an optimistic locking error just like a merge. Transient or unversioned entities and entities of which
+     * another instance is already managed are merged instead. A managed instance loaded in read-only mode is detached
+     * first. Reattaching keeps the loaded lazy attributes of the entity, so they are neither loaded again nor written
+     * as unfetched.
+     *
+     * @param entityManager entity manager with an active transaction
+     * @param entity        entity instance
+     * @return The managed entity instance.
+     */
+    protected E updateEntity(EntityManager entityManager, E entity) {
+        ReadOnlyMode.release(entityManager, entity);
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        EntityPersister persister = session.getEntityPersister(null, entity);
+        Serializable id = persister.getIdentifier(entity, session);
+        Object version = persister.isVersioned() ? persister.getVersion(entity) : null;
+
+        if (id == null || version == null
+                || session.getPersistenceContext().getEntity(session.generateEntityKey(id, persister)) != null) {
+            return entityManager.merge(entity);
+        }
+
+        BytecodeEnhancementMetadata enhancementMetadata = persister.getEntityMetamodel()
+                .getBytecodeEnhancementMetadata();
+        boolean intercepted = !enhancementMetadata.isEnhancedForLazyLoading()
+                || enhancementMetadata.extractInterceptor(entity) != null;
+
+        session.update(entity);
+
+        if (!intercepted) {
+            restoreLazyAttributes(enhancementMetadata, entity);
+        }
+
+        return entity;
+    }
+
+    /**
+     * Marks the lazy attributes of a reattached entity as loaded. An entity without an interceptor was either created
+     * by the application or deserialized, e.g. from the page store, after a DAO had initialized its lazy attributes,
+     * so its fields hold their loaded state. Reattaching injects an interceptor which would treat them as unfetched.
+     *
+     * @param enhancementMetadata enhancement metadata of the entity class
+     * @param entity              reattached entity instance
+     */
+    private void restoreLazyAttributes(BytecodeEnhancementMetadata enhancementMetadata, E entity) {
+        LazyAttributeLoadingInterceptor interceptor = enhancementMetadata.extractInterceptor(entity);
+
+        if (interceptor != null) {
+            for (String attributeName : enhancementMetadata.getLazyAttributesMetadata().getLazyAttributeNames()) {
+                interceptor.attributeInitialized(attributeName);
+            }
+        }
+    }
+
+    /**
+     * Removes an entity instance within a running transaction.
+     *
+     * @param entityManager entity manager with an active transaction
+     * @param entity        entity instance
+     */
+    protected void removeEntity(EntityManager entityManager, E entity) {
+        entityManager.remove(entityManager.merge(entity));
+    }
+
+    /**
+     * Initializes lazy attributes of an entity within a running transaction, so that they can be read after the
+     * entity is detached. Finders call this for every entity they return. By default, nothing is initialized.
+     *
+     * @param entity entity instance
+     */
+    protected void initializeLazyAttributes(E entity) {
+    }
+
+    /**
+     * Applies an operation to items in chunks of hibernate.jdbc.batch_size. Every chunk runs in a transaction of its
+     * own on a dedicated entity manager. If a chunk fails because of concurrent modifications, its items are retried
+     * one by one if retryItems is set, or reported as failed otherwise. A failed flush may have incremented the
+     * versions and cleared the dirty attributes of reattached items, so both are restored before an item is retried.
+     *
+     * @param items      items the operation is applied to
+     * @param operation  operation applied within a transaction
+     * @param retryItems whether the items of a failed chunk are retried one by one
+     * @param listener   listener notified after each chunk, or null
+     * @param <T>        item type
+     * @return The result of the bulk operation.
+     * @throws RuntimeException
+     */
+    private <T> BulkResult<T> processAll(Collection<T> items, BiFunction<EntityManager, T, T> operation,
+                                         Boolean retryItems, IBulkProgressListener listener)
+            throws RuntimeException {
+        List<T> itemList = new ArrayList<>(items);
+        BulkResult<T> result = new BulkResult<>(itemList.size());
+        int batchSize = getBatchSize();
+
+        try {
+            for (int index = 0; index < itemList.size(); index += batchSize) {
+                List<T> chunk = itemList.subList(index, Math.min(index + batchSize, itemList.size()));
+                List<ItemState> states = retryItems ? captureStates(chunk) : null;
+
+                try {
+                    result.addItems(processChunk(chunk, operation));
+                } catch (RuntimeException e) {
+                    if (!isLockingError(e)) {
+                        throw e;
+                    }
+
+                    for (int itemIndex = 0; itemIndex < chunk.size(); itemIndex++) {
+                        T item = chunk.get(itemIndex);
+
+                        if (!retryItems) {
+                            result.addFailure(item, e);
+                            continue;
+                        }
+
+                        states.get(itemIndex).restore(item);
+
+                        try {
+                            result.addItems(processChunk(Collections.singletonList(item), operation));
+                        } catch (RuntimeException itemException) {
+                            if (!isLockingError(itemException)) {
+                                throw itemException;
+                            }
+
+                            states.get(itemIndex).restore(item);
+                            result.addFailure(item, itemException);
+                        }
+                    }
+                }
+
+                if (listener != null) {
+                    listener.onChunkCompleted(result.getCompletedCount(), result.getTotalCount());
+                }
+            }
+        } finally {
+            if (!result.getItems().isEmpty()) {
+                fireWrite();
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Applies an operation to a chunk of items in one transaction. The chunk runs on an entity manager of its own,
+     * which is closed afterwards, so that memory use doesn’t grow with the number of chunks and entities of a shared
+     * persistence context stay managed.
+     *
+     * @param chunk     chunk of items
+     * @param operation operation applied within a transaction
+     * @param <T>       item type
+     * @return The results of the operation.
+     * @throws RuntimeException
+     */
+    private <T> List<T> processChunk(List<T> chunk, BiFunction<EntityManager, T, T> operation)
+            throws RuntimeException {
+        EntityManager entityManager = EntityManagerListener.createDedicatedEntityManager(getClass(), "processChunk");
+        EntityTransaction transaction = null;
+
+        try {
+            List<T> resultList = new ArrayList<>();
+            transaction = entityManager.getTransaction();
+            transaction.begin();
+
+            for (T item : chunk) {
+                resultList.add(operation.apply(entityManager, item));
+            }
+
+            entityManager.flush();
+            transaction.commit();
+            return resultList;
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+
+            if (transaction != null && transaction.isActive()) {
+                transaction.rollback();
+            }
+
+            throw e;
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    /**
+     * Captures the versions and dirty attributes of the entities of a chunk.
+     *
+     * @param chunk chunk of entities
+     * @param <T>   item type
+     * @return The states of the entities, in chunk order.
+     */
+    private <T> List<ItemState> captureStates(List<T> chunk) {
+        SessionFactoryImplementor sessionFactory = EntityManagerListener.getEntityManagerFactory()
+                .unwrap(SessionFactoryImplementor.class);
+        List<ItemState> states = new ArrayList<>();
+
+        for (T item : chunk) {
+            EntityPersister persister = sessionFactory.getMetamodel().entityPersister(item.getClass());
+            states.add(new ItemState(persister, item));
+        }
+
+        return states;
+    }
+
+    /**
+     * Returns the chunk size of bulk operations.
+     *
+     * @return The value of hibernate.jdbc.batch_size.
+     */
+    private int getBatchSize() {
+        Object batchSize = EntityManagerListener.getEntityManagerFactory().getProperties()
+                .get("hibernate.jdbc.batch_size");
+
+        if (batchSize != null) {
+            try {
+                int size = Integer.parseInt(batchSize.toString());
+
+                if (size > 0) {
+                    return size;
+                }
+            } catch (NumberFormatException e) {
+                e.printStackTrace();
+            }
+        }
+
+        return DEFAULT_BATCH_SIZE;
+    }
+
+    /**
+     * Checks if an exception was caused by concurrent modifications.
+     *
+     * @param exception raised exception
+     * @return True if the exception or one of its causes is a locking error; false otherwise.
+     */
+    private Boolean isLockingError(Throwable exception) {
+        for (Throwable cause = exception; cause != null; cause = cause.getCause()) {
+            if (cause instanceof OptimisticLockException || cause instanceof StaleObjectStateException
+                    || cause instanceof UnresolvableObjectException) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
     /**
      * {@inheritDoc}
      *
      * @throws RuntimeException
      */
     public E refresh(E entity) throws RuntimeException {
-        EntityManager entityManager = EntityManagerListener.createEntityManager();
+        EntityManager entityManager = EntityManagerListener.createEntityManager(getClass(), "refresh");
         EntityTransaction transaction = null;
 
         try {
@@ -149,6 +518,7 @@ public abstract class GenericDao<E> implements IDao<E> {
             transaction.begin();
             E mergedEntity = entityManager.merge(entity);
             entityManager.refresh(mergedEntity);
+            initializeLazyAttributes(mergedEntity);
             transaction.commit();
             return mergedEntity;
         } catch (RuntimeException e) {
@@ -170,13 +540,18 @@ public abstract class GenericDao<E> implements IDao<E> {
      * @throws RuntimeException
      */
     public E find(Object primaryKey) throws RuntimeException {
-        EntityManager entityManager = EntityManagerListener.createEntityManager();
+        EntityManager entityManager = EntityManagerListener.createEntityManager(getClass(), "find");
         EntityTransaction transaction = null;
 
         try {
             transaction = entityManager.getTransaction();
-            transaction.begin();
+            ReadOnlyMode.begin(entityManager, transaction);
             E entity = entityManager.find(entityClass, primaryKey);
+
+            if (entity != null) {
+                initializeLazyAttributes(entity);
+            }
+
             transaction.commit();
             return entity;
         } catch (RuntimeException e) {
@@ -188,24 +563,106 @@ public abstract class GenericDao<E> implements IDao<E> {
 
             throw e;
         } finally {
+            ReadOnlyMode.end(entityManager);
+            entityManager.close();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws RuntimeException
+     */
+    public E find(Object primaryKey, FetchPlan fetchPlan) throws RuntimeException {
+        EntityManager entityManager = EntityManagerListener.createEntityManager(getClass(), "find");
+        EntityTransaction transaction = null;
+
+        try {
+            transaction = entityManager.getTransaction();
+            ReadOnlyMode.begin(entityManager, transaction);
+            TypedQuery<E> query = createFetchPlanQuery(entityManager, "WHERE e.id = :id", fetchPlan);
+            List<E> entityList = query.setParameter("id", primaryKey).getResultList();
+            entityList.forEach(this::initializeLazyAttributes);
+            transaction.commit();
+            return entityList.isEmpty() ? null : entityList.get(0);
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+
+            if (transaction != null && transaction.isActive()) {
+                transaction.rollback();
+            }
+
+            throw e;
+        } finally {
+            ReadOnlyMode.end(entityManager);
             entityManager.close();
         }
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * @throws RuntimeException
+     */
+    public List<E> getAll(FetchPlan fetchPlan) throws RuntimeException {
+        EntityManager entityManager = EntityManagerListener.createEntityManager(getClass(), "getAll");
+        EntityTransaction transaction = null;
+
+        try {
+            transaction = entityManager.getTransaction();
+            ReadOnlyMode.begin(entityManager, transaction);
+            List<E> entityList = createFetchPlanQuery(entityManager, "ORDER BY e.id", fetchPlan).getResultList();
+            entityList.forEach(this::initializeLazyAttributes);
+            transaction.commit();
+            return entityList;
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+
+            if (transaction != null && transaction.isActive()) {
+                transaction.rollback();
+            }
+
+            throw e;
+        } finally {
+            ReadOnlyMode.end(entityManager);
+            entityManager.close();
+        }
+    }
+
+    /**
+     * Creates a query for entities which fetches the associations of a fetch plan with joins. The query bypasses the
+     * second-level cache for the root entities, so that the graph is applied in any case, and does not repeat root
+     * entities joined with several associated entities.
+     *
+     * @param entityManager entity manager running the query
+     * @param clause        WHERE or ORDER BY clause appended to the query
+     * @param fetchPlan     associations loaded along with the entities
+     * @return A typed query.
+     */
+    private TypedQuery<E> createFetchPlanQuery(EntityManager entityManager, String clause, FetchPlan fetchPlan) {
+        TypedQuery<E> query = entityManager.createQuery("SELECT DISTINCT e FROM " + entityClass.getSimpleName() +
+                " e " + clause, entityClass);
+
+        query.setHint(LOAD_GRAPH_HINT, fetchPlan.getEntityGraph(entityManager, entityClass));
+        query.setHint(QueryHints.PASS_DISTINCT_THROUGH, false);
+        return query;
+    }
+
     /**
      * {@inheritDoc}
      *
      * @throws RuntimeException
      */
     public List<E> getAll() {
-        EntityManager entityManager = EntityManagerListener.createEntityManager();
+        EntityManager entityManager = EntityManagerListener.createEntityManager(getClass(), "getAll");
         EntityTransaction transaction = null;
 
         try {
             transaction = entityManager.getTransaction();
-            transaction.begin();
+            ReadOnlyMode.begin(entityManager, transaction);
             TypedQuery<E> query = entityManager.createQuery("FROM " + entityClass.getSimpleName(), entityClass);
             List<E> entityList = query.getResultList();
+            entityList.forEach(this::initializeLazyAttributes);
             transaction.commit();
             return entityList;
         } catch (RuntimeException e) {
@@ -217,10 +674,127 @@ public abstract class GenericDao<E> implements IDao<E> {
 
             throw e;
         } finally {
+            ReadOnlyMode.end(entityManager);
             entityManager.close();
         }
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * @throws RuntimeException
+     */
+    public void stream(Consumer<E> consumer) throws RuntimeException {
+        stream(this::createStreamQuery, consumer);
+    }
+
+    /**
+     * Creates the query used to stream all entity instances.
+     *
+     * @param entityManager entity manager running the query
+     * @return A typed query.
+     */
+    protected TypedQuery<E> createStreamQuery(EntityManager entityManager) {
+        return entityManager.createQuery("SELECT e FROM " + entityClass.getSimpleName() + " e ORDER BY e.id",
+                entityClass);
+    }
+
+    /**
+     * Streams the results of a query to a consumer in a read-only transaction. Results are read with a forward-only
+     * cursor, bypass the second-level cache and are detached in batches of STREAM_FETCH_SIZE, so that memory use
+     * doesn’t grow with the number of results. The query runs on an entity manager of its own, so that detaching
+     * results doesn’t detach entities of a shared persistence context. Consumers must not keep references to results
+     * if memory matters.
+     *
+     * @param queryFactory function creating the query
+     * @param consumer     consumer of results
+     * @param <T>          result type
+     * @throws RuntimeException
+     */
+    @SuppressWarnings("unchecked")
+    protected <T> void stream(Function<EntityManager, TypedQuery<T>> queryFactory, Consumer<T> consumer)
+            throws RuntimeException {
+        EntityManager entityManager = EntityManagerListener.createDedicatedEntityManager(getClass(), "stream");
+        EntityTransaction transaction = null;
+        ScrollableResults results = null;
+
+        try {
+            transaction = entityManager.getTransaction();
+            ReadOnlyMode.begin(entityManager, transaction);
+            Query<T> query = queryFactory.apply(entityManager).unwrap(Query.class);
+            results = query.setFetchSize(STREAM_FETCH_SIZE).setCacheMode(CacheMode.IGNORE)
+                    .scroll(ScrollMode.FORWARD_ONLY);
+
+            for (int count = 1; results.next(); count++) {
+                consumer.accept((T) results.get(0));
+
+                if (count % STREAM_FETCH_SIZE == 0) {
+                    entityManager.clear();
+                }
+            }
+
+            results.close();
+            results = null;
+            transaction.commit();
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+
+            if (results != null) {
+                results.close();
+            }
+
+            if (transaction != null && transaction.isActive()) {
+                transaction.rollback();
+            }
+
+            throw e;
+        } finally {
+            ReadOnlyMode.end(entityManager);
+            entityManager.close();
+        }
+    }
+
+    /**
+     * Adds a listener which is notified about writes of all DAOs.
+     *
+     * @param listener write listener
+     */
+    public static void addWriteListener(IWriteListener listener) {
+        writeListeners.add(listener);
+    }
+
+    /**
+     * Notifies write listeners that entities of this DAO were written. Called after a write transaction was
+     * committed.
+     */
+    protected void fireWrite() {
+        fireWrite(entityClass);
+    }
+
+    /**
+     * Notifies write listeners that entities of some class were written.
+     *
+     * @param writtenClass class of written entities
+     */
+    protected static void fireWrite(Class<?> writtenClass) {
+        for (IWriteListener listener : writeListeners) {
+            listener.onWrite(writtenClass);
+        }
+    }
+
+    /**
+     * Marks a query as cacheable. Results are stored in a region of the query cache and invalidated by Hibernate
+     * whenever one of the queried tables is written.
+     *
+     * @param query  typed query
+     * @param region name of the query cache region
+     * @param <T>    result type
+     * @return The cacheable query.
+     */
+    protected <T> TypedQuery<T> setCacheable(TypedQuery<T> query, String region) {
+        return query.setHint(QueryHints.CACHEABLE, true).setHint(QueryHints.CACHE_REGION, region);
+    }
+
     /**
      * {@inheritDoc}
      *
@@ -286,4 +860,57 @@ public abstract class GenericDao<E> implements IDao<E> {
             throw exception;
         }
     }
+
+    /**
+     * Version and dirty attributes of an entity before a chunk was flushed.
+     */
+    private static final class ItemState {
+        /**
+         * Persister of the entity class.
+         */
+        private final EntityPersister persister;
+
+        /**
+         * Version of the entity, or null if the entity is not versioned.
+         */
+        private final Object version;
+
+        /**
+         * Names of dirty attributes tracked by the entity.
+         */
+        private final String[] dirtyAttributes;
+
+        /**
+         * Captures the state of an entity.
+         *
+         * @param persister persister of the entity class
+         * @param entity    entity instance
+         */
+        private ItemState(EntityPersister persister, Object entity) {
+            this.persister = persister;
+            version = persister.isVersioned() ? persister.getVersion(entity) : null;
+            dirtyAttributes = entity instanceof SelfDirtinessTracker
+                    ? ((SelfDirtinessTracker) entity).$$_hibernate_getDirtyAttributes() : new String[0];
+        }
+
+        /**
+         * Restores the captured version and dirty attributes of an entity.
+         *
+         * @param entity entity instance
+         */
+        private void restore(Object entity) {
+            if (persister.isVersioned()) {
+                persister.setPropertyValue(entity, persister.getVersionProperty(), version);
+            }
+
+            if (entity instanceof SelfDirtinessTracker) {
+                SelfDirtinessTracker tracker = (SelfDirtinessTracker) entity;
+                tracker.$$_hibernate_clearDirtyAttributes();
+
+                for (String attributeName : dirtyAttributes) {
+                    tracker.$$_hibernate_trackChange(attributeName);
+                }
+            }
+        }
+    }
 }
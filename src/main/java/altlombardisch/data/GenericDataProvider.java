@@ -1,5 +1,6 @@
 package altlombardisch.data;
 
+import org.apache.wicket.core.util.lang.PropertyResolver;
 import org.apache.wicket.extensions.markup.html.repeater.data.table.filter.IFilterStateLocator;
 import org.apache.wicket.extensions.markup.html.repeater.util.SortParam;
 import org.apache.wicket.extensions.markup.html.repeater.util.SortableDataProvider;
@@ -8,13 +9,17 @@ import org.apache.wicket.model.IModel;
 
 import javax.persistence.EntityManager;
 import javax.persistence.EntityTransaction;
+import javax.persistence.Table;
 import javax.persistence.TypedQuery;
 import javax.persistence.criteria.*;
 import java.lang.reflect.Field;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 /**
  * Provides data for data table views.
@@ -22,11 +27,26 @@ import java.util.Map;
  * @param <T> data type that is provided
  */
 public final class GenericDataProvider<T> extends SortableDataProvider<T, String> implements IFilterStateLocator<T> {
+    /**
+     * Minimum number of estimated rows from which approximate counts are used.
+     */
+    private static final long APPROXIMATE_SIZE_THRESHOLD = 100000L;
+
     /**
      * The data type that is provided.
      */
     private final Class<T> typeClass;
 
+    /**
+     * The entity type that is queried.
+     */
+    private final Class<?> entityClass;
+
+    /**
+     * Attributes selected as constructor arguments of the data type, or null if entities are provided.
+     */
+    private final String[] attributes;
+
     /**
      * Defindes the default sort order.
      */
@@ -47,6 +67,56 @@ public final class GenericDataProvider<T> extends SortableDataProvider<T, String
      */
     private String property;
 
+    /**
+     * Whether unfiltered tables are counted with table statistics.
+     */
+    private boolean approximateSize = false;
+
+    /**
+     * Whether the last returned size is estimated.
+     */
+    private boolean approximate = false;
+
+    /**
+     * Whether adjacent pages are retrieved with keyset pagination.
+     */
+    private boolean keysetPaging = false;
+
+    /**
+     * Sort and filter parameters the keys of the current page belong to.
+     */
+    private List<Object> keysetParameters;
+
+    /**
+     * Index of the first row of the current page.
+     */
+    private long keysetFirst = -1;
+
+    /**
+     * Number of rows of the current page.
+     */
+    private long keysetCount = 0;
+
+    /**
+     * Sort value of the first row of the current page.
+     */
+    private Object firstSortValue;
+
+    /**
+     * ID of the first row of the current page.
+     */
+    private Object firstId;
+
+    /**
+     * Sort value of the last row of the current page.
+     */
+    private Object lastSortValue;
+
+    /**
+     * ID of the last row of the current page.
+     */
+    private Object lastId;
+
     /**
      * Creates a data provider.
      *
@@ -55,11 +125,35 @@ public final class GenericDataProvider<T> extends SortableDataProvider<T, String
      */
     public GenericDataProvider(Class<T> typeClass, SortParam<String> defaultSortParam) {
         this.typeClass = typeClass;
+        this.entityClass = typeClass;
+        this.attributes = null;
+        this.defaultSortParam = defaultSortParam;
+    }
+
+    /**
+     * Creates a data provider which provides projections of entities. Only the selected attributes are queried and
+     * passed to a constructor of the provided class in the given order.
+     *
+     * @param entityClass      entity type that is queried
+     * @param typeClass        class type that is provided
+     * @param defaultSortParam default sort param
+     * @param attributes       entity attributes passed to the constructor of the provided class
+     */
+    public GenericDataProvider(Class<?> entityClass, Class<T> typeClass, SortParam<String> defaultSortParam,
+                               String... attributes) {
+        this.typeClass = typeClass;
+        this.entityClass = entityClass;
+        this.attributes = attributes;
         this.defaultSortParam = defaultSortParam;
     }
 
     /**
      * Returns an iterator for a subset of total data.
+     * <p>
+     * With keyset pagination enabled, the next and previous page of the current page as well as the current page
+     * itself are retrieved by seeking from the sort key of the first or last row of the current page instead of
+     * skipping a number of rows. Other pages are retrieved with an offset.
+     * </p>
      *
      * @param first first row of data
      * @param count minimum number of rows retrieved
@@ -68,35 +162,72 @@ public final class GenericDataProvider<T> extends SortableDataProvider<T, String
     @Override
     @SuppressWarnings("unchecked")
     public Iterator<T> iterator(long first, long count) {
-        EntityManager entityManager = EntityManagerListener.createEntityManager();
+        EntityManager entityManager = EntityManagerListener.createEntityManager(getClass(), "iterator");
         CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
         CriteriaQuery<T> criteriaQuery = criteriaBuilder.createQuery(typeClass);
-        Root<T> root = criteriaQuery.from(typeClass);
+        Root<?> root = criteriaQuery.from(entityClass);
         EntityTransaction transaction = entityManager.getTransaction();
 
         if (getSort() == null) {
             setSort(defaultSortParam);
         }
 
-        Selection<T> selection = getSelection(root);
-        Map<String, Join<?, ?>> joins = CriteriaHelper.getJoins(root, typeClass);
+        Selection<T> selection = getSelection(criteriaBuilder, root);
+        Map<String, Join<?, ?>> joins = CriteriaHelper.getJoins(root, entityClass);
         Expression<Boolean> restriction = getRestriction(criteriaBuilder, root, joins);
-        List<Order> orderList = getOrder(criteriaBuilder, root, joins);
+        String sortProperty = getSort().getProperty();
+        boolean isAscending = getSort().isAscending();
+        boolean isReversed = false;
+        Expression<Boolean> keysetRestriction = null;
+
+        if (isKeysetApplicable(first)) {
+            if (first == keysetFirst + keysetCount) {
+                keysetRestriction = CriteriaHelper.getKeysetRestriction(criteriaBuilder, root, joins, sortProperty,
+                        isAscending, lastSortValue, lastId, false, entityClass);
+            } else if (first == keysetFirst) {
+                keysetRestriction = CriteriaHelper.getKeysetRestriction(criteriaBuilder, root, joins, sortProperty,
+                        isAscending, firstSortValue, firstId, true, entityClass);
+            } else if (first == keysetFirst - count) {
+                keysetRestriction = CriteriaHelper.getKeysetRestriction(criteriaBuilder, root, joins, sortProperty,
+                        !isAscending, firstSortValue, firstId, false, entityClass);
+                isReversed = true;
+            }
+        }
+
+        if (keysetRestriction != null) {
+            restriction = (restriction == null) ? keysetRestriction
+                    : criteriaBuilder.and(restriction, keysetRestriction);
+        }
+
+        List<Order> orderList = CriteriaHelper.getOrder(criteriaBuilder, root, joins, sortProperty,
+                isAscending != isReversed, entityClass);
         TypedQuery<T> typedQuery = null;
 
         if (restriction == null) {
-            typedQuery = entityManager.createQuery(criteriaQuery.select(selection).orderBy(orderList))
-                    .setFirstResult((int) first).setMaxResults((int) count);
+            typedQuery = entityManager.createQuery(criteriaQuery.select(selection).orderBy(orderList));
         } else {
             typedQuery = entityManager.createQuery(criteriaQuery.select(selection).where(restriction)
-                    .orderBy(orderList)).setFirstResult((int) first).setMaxResults((int) count);
+                    .orderBy(orderList));
         }
 
+        if (keysetRestriction == null) {
+            typedQuery.setFirstResult((int) first);
+        }
+
+        typedQuery.setMaxResults((int) count);
+
         try {
-            transaction.begin();
-            Iterator<T> iterator = typedQuery.getResultList().iterator();
+            ReadOnlyMode.begin(entityManager, transaction);
+            List<T> resultList = typedQuery.getResultList();
             transaction.commit();
-            return iterator;
+
+            if (isReversed) {
+                resultList = new ArrayList<>(resultList);
+                Collections.reverse(resultList);
+            }
+
+            updateKeyset(first, resultList);
+            return resultList.iterator();
         } catch (RuntimeException e) {
             e.printStackTrace();
 
@@ -106,10 +237,111 @@ public final class GenericDataProvider<T> extends SortableDataProvider<T, String
 
             throw e;
         } finally {
+            ReadOnlyMode.end(entityManager);
             entityManager.close();
         }
     }
 
+    /**
+     * Enables or disables keyset pagination for adjacent pages.
+     *
+     * @param keysetPaging whether adjacent pages are retrieved with keyset pagination
+     */
+    public void setKeysetPaging(boolean keysetPaging) {
+        this.keysetPaging = keysetPaging;
+        resetKeyset();
+    }
+
+    /**
+     * Determines if keyset pagination can be used to retrieve rows starting at some index.
+     *
+     * @param first first row of data
+     * @return True if the sort keys of the current page are usable; false otherwise.
+     */
+    private boolean isKeysetApplicable(long first) {
+        if (!keysetPaging || first == 0 || keysetFirst < 0) {
+            return false;
+        }
+
+        if (firstId == null || lastId == null || firstSortValue == null || lastSortValue == null) {
+            return false;
+        }
+
+        return getKeysetParameters().equals(keysetParameters);
+    }
+
+    /**
+     * Remembers the sort keys of the first and last row of the current page.
+     *
+     * @param first      index of the first row of the current page
+     * @param resultList rows of the current page
+     */
+    private void updateKeyset(long first, List<T> resultList) {
+        if (!keysetPaging || resultList.isEmpty()) {
+            resetKeyset();
+            return;
+        }
+
+        String sortProperty = getSort().getProperty();
+        T firstObject = resultList.get(0);
+        T lastObject = resultList.get(resultList.size() - 1);
+        keysetParameters = getKeysetParameters();
+        keysetFirst = first;
+        keysetCount = resultList.size();
+        firstSortValue = PropertyResolver.getValue(sortProperty, firstObject);
+        firstId = PropertyResolver.getValue("id", firstObject);
+        lastSortValue = PropertyResolver.getValue(sortProperty, lastObject);
+        lastId = PropertyResolver.getValue("id", lastObject);
+    }
+
+    /**
+     * Forgets the sort keys of the current page.
+     */
+    private void resetKeyset() {
+        keysetParameters = null;
+        keysetFirst = -1;
+        keysetCount = 0;
+        firstSortValue = null;
+        firstId = null;
+        lastSortValue = null;
+        lastId = null;
+    }
+
+    /**
+     * Returns the sort and filter parameters which determine the rows of a page. Sort keys are only valid as long as
+     * these parameters don’t change.
+     *
+     * @return A list of parameters.
+     */
+    private List<Object> getKeysetParameters() {
+        List<Object> parameters = new ArrayList<>(Arrays.asList(getSort().getProperty(), getSort().isAscending()));
+        parameters.addAll(getFilterParameters());
+        return parameters;
+    }
+
+    /**
+     * Returns the string filter, filter property and filter state values which determine the rows of a table.
+     *
+     * @return A list of parameters.
+     */
+    private List<Object> getFilterParameters() {
+        List<Object> parameters = new ArrayList<>(Arrays.asList(filter, property));
+
+        if (state != null) {
+            for (Field field : state.getClass().getDeclaredFields()) {
+                field.setAccessible(true);
+
+                try {
+                    parameters.add(Objects.toString(field.get(state), null));
+                } catch (IllegalArgumentException | IllegalAccessException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+
+        return parameters;
+    }
+
     /**
      * Wraps objects retrieved from an iterator as models.
      *
@@ -132,22 +364,45 @@ public final class GenericDataProvider<T> extends SortableDataProvider<T, String
 
     /**
      * Returns the total number of items in the collection represented by the DataProvider.
+     * <p>
+     * Counts are cached per entity class and filter until entities of the class are written through a DAO. With
+     * approximate size enabled, unfiltered tables with more than APPROXIMATE_SIZE_THRESHOLD rows are counted with
+     * MySQL table statistics instead of a full scan.
+     * </p>
      *
      * @return Total number of items.
      */
     @Override
     public long size() {
-        EntityManager entityManager = EntityManagerListener.createEntityManager();
-        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
-        CriteriaQuery<Long> criteriaQuery = criteriaBuilder.createQuery(Long.class);
-        Root<T> root = criteriaQuery.from(typeClass);
-        EntityTransaction transaction = entityManager.getTransaction();
-
         if (getSort() == null) {
             setSort(defaultSortParam);
         }
 
-        Map<String, Join<?, ?>> joins = CriteriaHelper.getJoins(root, typeClass);
+        List<Object> parameters = getFilterParameters();
+        CountCache.Count count = CountCache.get(entityClass, parameters);
+
+        if (count == null) {
+            long generation = CountCache.getGeneration(entityClass);
+            count = count();
+            CountCache.put(entityClass, parameters, generation, count);
+        }
+
+        approximate = count.isApproximate();
+        return count.getSize();
+    }
+
+    /**
+     * Counts the rows matching the current filter.
+     *
+     * @return A row count.
+     */
+    private CountCache.Count count() {
+        EntityManager entityManager = EntityManagerListener.createEntityManager(getClass(), "size");
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> criteriaQuery = criteriaBuilder.createQuery(Long.class);
+        Root<?> root = criteriaQuery.from(entityClass);
+        EntityTransaction transaction = entityManager.getTransaction();
+        Map<String, Join<?, ?>> joins = CriteriaHelper.getJoins(root, entityClass);
         Expression<Boolean> restriction = getRestriction(criteriaBuilder, root, joins);
         TypedQuery<Long> typedQuery = null;
 
@@ -159,10 +414,20 @@ public final class GenericDataProvider<T> extends SortableDataProvider<T, String
         }
 
         try {
-            transaction.begin();
+            ReadOnlyMode.begin(entityManager, transaction);
+
+            if (restriction == null && approximateSize) {
+                Long estimatedSize = getEstimatedSize(entityManager);
+
+                if (estimatedSize != null && estimatedSize > APPROXIMATE_SIZE_THRESHOLD) {
+                    transaction.commit();
+                    return new CountCache.Count(estimatedSize, true);
+                }
+            }
+
             Long size = typedQuery.getSingleResult();
             transaction.commit();
-            return size;
+            return new CountCache.Count(size, false);
         } catch (RuntimeException e) {
             e.printStackTrace();
 
@@ -172,10 +437,54 @@ public final class GenericDataProvider<T> extends SortableDataProvider<T, String
 
             throw e;
         } finally {
+            ReadOnlyMode.end(entityManager);
             entityManager.close();
         }
     }
 
+    /**
+     * Returns the number of rows of the entity table estimated by MySQL table statistics.
+     *
+     * @param entityManager entity manager with an active transaction
+     * @return An estimated number of rows, or null if no estimate is available.
+     */
+    private Long getEstimatedSize(EntityManager entityManager) {
+        Object dialect = entityManager.getEntityManagerFactory().getProperties().get("hibernate.dialect");
+        Table table = entityClass.getAnnotation(Table.class);
+
+        if (dialect == null || !dialect.toString().contains("MySQL") || table == null) {
+            return null;
+        }
+
+        List<?> resultList = entityManager.createNativeQuery("SELECT TABLE_ROWS FROM information_schema.TABLES " +
+                "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = :name")
+                .setParameter("name", table.name().replace("\"", "")).getResultList();
+
+        if (resultList.isEmpty() || resultList.get(0) == null) {
+            return null;
+        }
+
+        return ((Number) resultList.get(0)).longValue();
+    }
+
+    /**
+     * Enables or disables approximate counts for unfiltered tables.
+     *
+     * @param approximateSize whether unfiltered tables are counted with table statistics
+     */
+    public void setApproximateSize(boolean approximateSize) {
+        this.approximateSize = approximateSize;
+    }
+
+    /**
+     * Determines if the last returned size is estimated.
+     *
+     * @return True if the last returned size is estimated; false otherwise.
+     */
+    public boolean isApproximate() {
+        return approximate;
+    }
+
     /**
      * Returns the state defined by a filter form.
      *
@@ -205,7 +514,7 @@ public final class GenericDataProvider<T> extends SortableDataProvider<T, String
      * @param root            query root referencing entities
      * @return An expression of type boolean, or null.
      */
-    private Expression<Boolean> getFilterStateRestriction(CriteriaBuilder criteriaBuilder, Root<T> root) {
+    private Expression<Boolean> getFilterStateRestriction(CriteriaBuilder criteriaBuilder, Root<?> root) {
         if (state != null) {
             List<Predicate> predicateList = new ArrayList<>();
 
@@ -252,12 +561,13 @@ public final class GenericDataProvider<T> extends SortableDataProvider<T, String
      * @param root            query root referencing entities
      * @return An expression of type boolean, or null.
      */
-    private Expression<Boolean> getFilterStringRestriction(CriteriaBuilder criteriaBuilder, Root<T> root,
+    private Expression<Boolean> getFilterStringRestriction(CriteriaBuilder criteriaBuilder, Root<?> root,
                                                            Map<String, Join<?, ?>> joins) {
         if (filter != null && property != null) {
-            return CriteriaHelper.getFilterStringRestriction(criteriaBuilder, root, joins, filter, property, typeClass);
+            return CriteriaHelper.getFilterStringRestriction(criteriaBuilder, root, joins, filter, property,
+                    entityClass);
         } else if (filter != null) {
-            return CriteriaHelper.getFilterStringRestriction(criteriaBuilder, root, joins, filter, null, typeClass);
+            return CriteriaHelper.getFilterStringRestriction(criteriaBuilder, root, joins, filter, null, entityClass);
         } else {
             return null;
         }
@@ -289,11 +599,23 @@ public final class GenericDataProvider<T> extends SortableDataProvider<T, String
     /**
      * Return the selection for criteria queries.
      *
-     * @param root query root referencing entities
+     * @param criteriaBuilder contructor for criteria queries
+     * @param root            query root referencing entities
      * @return A selection.
      */
-    private Selection<T> getSelection(Root<T> root) {
-        return root;
+    @SuppressWarnings("unchecked")
+    private Selection<T> getSelection(CriteriaBuilder criteriaBuilder, Root<?> root) {
+        if (attributes == null) {
+            return (Selection<T>) root;
+        }
+
+        Selection<?>[] selections = new Selection<?>[attributes.length];
+
+        for (int i = 0; i < attributes.length; i++) {
+            selections[i] = root.get(attributes[i]);
+        }
+
+        return criteriaBuilder.construct(typeClass, selections);
     }
 
     /**
@@ -303,7 +625,7 @@ public final class GenericDataProvider<T> extends SortableDataProvider<T, String
      * @param root            query root referencing entities
      * @return An expression of type boolean, or null.
      */
-    private Expression<Boolean> getRestriction(CriteriaBuilder criteriaBuilder, Root<T> root,
+    private Expression<Boolean> getRestriction(CriteriaBuilder criteriaBuilder, Root<?> root,
                                                Map<String, Join<?, ?>> joins) {
         Expression<Boolean> filterStateRestriction = getFilterStateRestriction(criteriaBuilder, root);
         Expression<Boolean> filterStringRestriction = getFilterStringRestriction(criteriaBuilder, root, joins);
@@ -316,19 +638,4 @@ public final class GenericDataProvider<T> extends SortableDataProvider<T, String
 
         return null;
     }
-
-    /**
-     * Returns a list of orders matching sort properties.
-     *
-     * @param criteriaBuilder contructor for criteria queries
-     * @param root            query root referencing entities
-     * @param joins           map of joins
-     * @return A list of order objects.
-     */
-    private List<Order> getOrder(CriteriaBuilder criteriaBuilder, Root<T> root, Map<String, Join<?, ?>> joins) {
-        String property = getSort().getProperty();
-
-        return CriteriaHelper.getOrder(criteriaBuilder, root, joins, property, getSort().isAscending(),
-                typeClass);
-    }
 }
@@ -0,0 +1,16 @@
+package altlombardisch.data;
+
+/**
+ * A listener which is notified about the progress of bulk operations.
+ *
+ * @see IDao#persistAll(java.util.Collection, IBulkProgressListener)
+ */
+public interface IBulkProgressListener {
+    /**
+     * Called after a chunk of a bulk operation was committed or rolled back.
+     *
+     * @param completedCount number of items processed so far, including failed items
+     * @param totalCount     total number of items
+     */
+    void onChunkCompleted(int completedCount, int totalCount);
+}
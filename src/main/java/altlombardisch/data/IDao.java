@@ -1,6 +1,8 @@
 package altlombardisch.data;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * The root interface of the DAO hierarchy.
@@ -45,6 +47,47 @@ public interface IDao<E> {
      */
     void removeByPrimaryKey(Object primaryKey);
 
+    /**
+     * Makes instances managed and persistent. Instances are written in chunks of hibernate.jdbc.batch_size, each in a
+     * transaction of its own. If a chunk fails because of concurrent modifications, its instances are reported as
+     * failed.
+     *
+     * @param entities entity instances
+     * @param listener listener notified after each chunk, or null
+     * @return The result of the bulk operation.
+     */
+    BulkResult<E> persistAll(Collection<E> entities, IBulkProgressListener listener);
+
+    /**
+     * Merges the state of entities into the persistence context. Instances are written in chunks of
+     * hibernate.jdbc.batch_size, each in a transaction of its own. Instances modified concurrently are reported as
+     * failed instead of aborting the operation.
+     *
+     * @param entities entity instances
+     * @param listener listener notified after each chunk, or null
+     * @return The result of the bulk operation containing the merged instances.
+     */
+    BulkResult<E> mergeAll(Collection<E> entities, IBulkProgressListener listener);
+
+    /**
+     * Removes entity instances. Instances are removed in chunks of hibernate.jdbc.batch_size, each in a transaction of
+     * its own. Instances modified concurrently are reported as failed instead of aborting the operation.
+     *
+     * @param entities entity instances
+     * @param listener listener notified after each chunk, or null
+     * @return The result of the bulk operation.
+     */
+    BulkResult<E> removeAll(Collection<E> entities, IBulkProgressListener listener);
+
+    /**
+     * Removes entity instances found by primary key. Primary keys without entity are skipped.
+     *
+     * @param primaryKeys primary keys
+     * @param listener    listener notified after each chunk, or null
+     * @return The result of the bulk operation containing primary keys.
+     */
+    BulkResult<Object> removeByIds(Collection<?> primaryKeys, IBulkProgressListener listener);
+
     /**
      * Refresh the state of the instance from the database, overwriting changes made to the entity, if any.
      *
@@ -62,6 +105,15 @@ public interface IDao<E> {
      */
     E find(Object primaryKey);
 
+    /**
+     * Find by primary key and load the associations of a fetch plan with the entity in one query.
+     *
+     * @param primaryKey primary key
+     * @param fetchPlan  associations loaded along with the entity
+     * @return The found entity instance or null if the entity does not exist.
+     */
+    E find(Object primaryKey, FetchPlan fetchPlan);
+
     /**
      * Delivers a list with all entity instances.
      *
@@ -69,6 +121,22 @@ public interface IDao<E> {
      */
     List<E> getAll();
 
+    /**
+     * Delivers a list with all entity instances and loads the associations of a fetch plan with them in one query.
+     *
+     * @param fetchPlan associations loaded along with the entities
+     * @return A list of entity instances.
+     */
+    List<E> getAll(FetchPlan fetchPlan);
+
+    /**
+     * Passes all entity instances to a consumer one by one without loading them into memory at once. Instances are
+     * read-only and detached periodically.
+     *
+     * @param consumer consumer of entity instances
+     */
+    void stream(Consumer<E> consumer);
+
     /**
      * Sends the user to an error page if saving of data failed due to locking.
      *
@@ -0,0 +1,15 @@
+package altlombardisch.data;
+
+/**
+ * A listener which is notified when entities are written through a DAO.
+ *
+ * @see GenericDao#addWriteListener(IWriteListener)
+ */
+public interface IWriteListener {
+    /**
+     * Called after a transaction which wrote entities of some type was committed.
+     *
+     * @param entityClass class of written entities
+     */
+    void onWrite(Class<?> entityClass);
+}
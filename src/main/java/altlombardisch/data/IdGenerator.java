@@ -0,0 +1,127 @@
+package altlombardisch.data;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.EntityTransaction;
+import javax.persistence.TableGenerator;
+import javax.persistence.metamodel.EntityType;
+import java.lang.reflect.Field;
+import java.util.List;
+
+/**
+ * Settings and initialization of the table-backed ID generator of entities. IDs are reserved in blocks of
+ * ALLOCATION_SIZE per node with the pooled-lo optimizer, so that inserts don’t need a database round trip per ID and
+ * can be batched.
+ */
+public final class IdGenerator {
+    /**
+     * Name of the table storing the next ID of each entity.
+     */
+    public static final String TABLE = "id_generator";
+
+    /**
+     * Name of the column identifying an entity.
+     */
+    public static final String SEGMENT_COLUMN = "entity";
+
+    /**
+     * Name of the column storing the next ID.
+     */
+    public static final String VALUE_COLUMN = "next_val";
+
+    /**
+     * Number of IDs reserved at once.
+     */
+    public static final int ALLOCATION_SIZE = 50;
+
+    /**
+     * Prevents instantiation.
+     */
+    private IdGenerator() {
+    }
+
+    /**
+     * Makes sure that the next ID of every entity with a table generator is greater than its existing IDs. Entities
+     * created with IDENTITY keep their IDs.
+     *
+     * @param entityManagerFactory entity manager factory of the persistence unit
+     * @throws RuntimeException
+     */
+    static void initialize(EntityManagerFactory entityManagerFactory) throws RuntimeException {
+        for (EntityType<?> entityType : entityManagerFactory.getMetamodel().getEntities()) {
+            TableGenerator tableGenerator = getTableGenerator(entityType.getJavaType());
+
+            if (tableGenerator != null) {
+                initialize(entityManagerFactory, entityType.getName(), tableGenerator.pkColumnValue());
+            }
+        }
+    }
+
+    /**
+     * Raises the next ID of an entity above its highest existing ID.
+     *
+     * @param entityManagerFactory entity manager factory of the persistence unit
+     * @param entityName           JPQL name of the entity
+     * @param segment              segment value of the entity in the generator table
+     * @throws RuntimeException
+     */
+    private static void initialize(EntityManagerFactory entityManagerFactory, String entityName, String segment)
+            throws RuntimeException {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        EntityTransaction transaction = null;
+
+        try {
+            transaction = entityManager.getTransaction();
+            transaction.begin();
+
+            List<?> valueList = entityManager.createNativeQuery("SELECT " + VALUE_COLUMN + " FROM " + TABLE +
+                    " WHERE " + SEGMENT_COLUMN + " = :segment FOR UPDATE").setParameter("segment", segment)
+                    .getResultList();
+            Number maximumId = (Number) entityManager.createQuery("SELECT MAX(e.id) FROM " + entityName + " e")
+                    .getSingleResult();
+            long nextId = (maximumId == null) ? 1L : maximumId.longValue() + 1L;
+
+            if (valueList.isEmpty()) {
+                entityManager.createNativeQuery("INSERT INTO " + TABLE + " (" + SEGMENT_COLUMN + ", " +
+                        VALUE_COLUMN + ") VALUES (:segment, :value)").setParameter("segment", segment)
+                        .setParameter("value", nextId).executeUpdate();
+            } else if (valueList.get(0) == null || ((Number) valueList.get(0)).longValue() < nextId) {
+                entityManager.createNativeQuery("UPDATE " + TABLE + " SET " + VALUE_COLUMN + " = :value WHERE " +
+                        SEGMENT_COLUMN + " = :segment").setParameter("segment", segment)
+                        .setParameter("value", nextId).executeUpdate();
+            }
+
+            transaction.commit();
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+
+            if (transaction != null && transaction.isActive()) {
+                transaction.rollback();
+            }
+
+            throw e;
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    /**
+     * Returns the table generator of the ID field of an entity class.
+     *
+     * @param entityClass entity class
+     * @return A table generator annotation, or null.
+     */
+    private static TableGenerator getTableGenerator(Class<?> entityClass) {
+        for (Class<?> type = entityClass; type != null; type = type.getSuperclass()) {
+            for (Field field : type.getDeclaredFields()) {
+                TableGenerator tableGenerator = field.getAnnotation(TableGenerator.class);
+
+                if (tableGenerator != null) {
+                    return tableGenerator;
+                }
+            }
+        }
+
+        return null;
+    }
+}
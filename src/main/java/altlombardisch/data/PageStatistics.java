@@ -0,0 +1,174 @@
+package altlombardisch.data;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Aggregated request statistics of a page class.
+ *
+ * @see RequestStatistics
+ */
+public final class PageStatistics {
+    /**
+     * Statistics keyed by page class name.
+     */
+    private static final ConcurrentMap<String, PageStatistics> pageStatistics = new ConcurrentHashMap<>();
+
+    /**
+     * Number of requests.
+     */
+    private long requestCount = 0L;
+
+    /**
+     * Total number of JDBC statements.
+     */
+    private long statementCount = 0L;
+
+    /**
+     * Maximum number of JDBC statements of a single request.
+     */
+    private int maximumStatementCount = 0;
+
+    /**
+     * Total time in milliseconds spent in JDBC.
+     */
+    private long jdbcTime = 0L;
+
+    /**
+     * Total number of loaded entities.
+     */
+    private long entityLoadCount = 0L;
+
+    /**
+     * Total number of fetched collections.
+     */
+    private long collectionFetchCount = 0L;
+
+    /**
+     * Creates page statistics.
+     */
+    private PageStatistics() {
+    }
+
+    /**
+     * Adds the statistics of a request to the statistics of its page class. Requests not handled by a page are
+     * ignored.
+     *
+     * @param statistics request statistics
+     */
+    static void add(RequestStatistics statistics) {
+        if (statistics.getPageClass() != null) {
+            pageStatistics.computeIfAbsent(statistics.getPageClass().getName(), name -> new PageStatistics())
+                    .addRequest(statistics);
+        }
+    }
+
+    /**
+     * Returns a snapshot of the statistics of all page classes.
+     *
+     * @return A map of page class names and copies of their statistics, ordered by name.
+     */
+    public static Map<String, PageStatistics> getAll() {
+        Map<String, PageStatistics> snapshot = new TreeMap<>();
+
+        pageStatistics.forEach((name, statistics) -> snapshot.put(name, statistics.copy()));
+        return Collections.unmodifiableMap(snapshot);
+    }
+
+    /**
+     * Adds the statistics of a request.
+     *
+     * @param statistics request statistics
+     */
+    private synchronized void addRequest(RequestStatistics statistics) {
+        requestCount++;
+        statementCount += statistics.getStatementCount();
+        maximumStatementCount = Math.max(maximumStatementCount, statistics.getStatementCount());
+        jdbcTime += statistics.getJdbcTime();
+        entityLoadCount += statistics.getEntityLoadCount();
+        collectionFetchCount += statistics.getCollectionFetchCount();
+    }
+
+    /**
+     * Returns a consistent copy of these statistics.
+     *
+     * @return A copy.
+     */
+    private synchronized PageStatistics copy() {
+        PageStatistics copy = new PageStatistics();
+
+        copy.requestCount = requestCount;
+        copy.statementCount = statementCount;
+        copy.maximumStatementCount = maximumStatementCount;
+        copy.jdbcTime = jdbcTime;
+        copy.entityLoadCount = entityLoadCount;
+        copy.collectionFetchCount = collectionFetchCount;
+        return copy;
+    }
+
+    /**
+     * Returns the number of requests.
+     *
+     * @return Number of requests.
+     */
+    public long getRequestCount() {
+        return requestCount;
+    }
+
+    /**
+     * Returns the total number of JDBC statements.
+     *
+     * @return Number of statements.
+     */
+    public long getStatementCount() {
+        return statementCount;
+    }
+
+    /**
+     * Returns the maximum number of JDBC statements of a single request.
+     *
+     * @return Number of statements.
+     */
+    public int getMaximumStatementCount() {
+        return maximumStatementCount;
+    }
+
+    /**
+     * Returns the total time spent in JDBC.
+     *
+     * @return Time in milliseconds.
+     */
+    public long getJdbcTime() {
+        return jdbcTime;
+    }
+
+    /**
+     * Returns the total number of loaded entities.
+     *
+     * @return Number of entities.
+     */
+    public long getEntityLoadCount() {
+        return entityLoadCount;
+    }
+
+    /**
+     * Returns the total number of fetched collections.
+     *
+     * @return Number of collections.
+     */
+    public long getCollectionFetchCount() {
+        return collectionFetchCount;
+    }
+
+    /**
+     * Returns the average number of JDBC statements per request.
+     *
+     * @return Average number of statements.
+     */
+    public double getAverageStatementCount() {
+        return (requestCount == 0L) ? 0.0 : (double) statementCount / requestCount;
+    }
+}
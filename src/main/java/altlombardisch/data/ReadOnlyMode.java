@@ -0,0 +1,114 @@
+package altlombardisch.data;
+
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.PersistenceContext;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityTransaction;
+import java.io.Serializable;
+
+/**
+ * Runs transactions of finders in read-only mode. Entities loaded in read-only mode have no dirty-checking snapshots
+ * and the session is never flushed. They stay read-only in the persistence context, which may be shared by a unit of
+ * work, until a DAO writes them. If altlombardisch.read_only_connection is set, the JDBC connection is marked
+ * read-only for the transaction as well, so that the database can skip bookkeeping for writes.
+ *
+ * @see UnitOfWork
+ */
+public final class ReadOnlyMode {
+    /**
+     * Name of the persistence unit property which enables read-only JDBC connections.
+     */
+    private static final String READ_ONLY_CONNECTION_PROPERTY = "altlombardisch.read_only_connection";
+
+    /**
+     * Prevents instantiation.
+     */
+    private ReadOnlyMode() {
+    }
+
+    /**
+     * Switches an entity manager to read-only mode and begins a transaction. Every call has to be followed by a call
+     * to end(), usually in a finally block.
+     *
+     * @param entityManager entity manager running the transaction
+     * @param transaction   transaction of the entity manager
+     */
+    public static void begin(EntityManager entityManager, EntityTransaction transaction) {
+        Session session = entityManager.unwrap(Session.class);
+
+        session.setDefaultReadOnly(true);
+        session.setHibernateFlushMode(FlushMode.MANUAL);
+
+        if (isReadOnlyConnection()) {
+            session.doWork(connection -> connection.setReadOnly(true));
+        }
+
+        transaction.begin();
+    }
+
+    /**
+     * Switches an entity manager back to read-write mode. Entities loaded in read-only mode stay managed. A JDBC
+     * connection marked read-only by begin() is reset, because the connection is held until the entity manager is
+     * closed and may be used for writes of the same unit of work.
+     *
+     * @param entityManager entity manager running the transaction
+     */
+    public static void end(EntityManager entityManager) {
+        Session session = entityManager.unwrap(Session.class);
+
+        if (!session.isOpen()) {
+            return;
+        }
+
+        try {
+            if (isReadOnlyConnection()) {
+                session.doWork(connection -> connection.setReadOnly(false));
+            }
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        } finally {
+            session.setDefaultReadOnly(false);
+            session.setHibernateFlushMode(FlushMode.AUTO);
+        }
+    }
+
+    /**
+     * Checks if JDBC connections of read-only transactions are marked read-only.
+     *
+     * @return The value of altlombardisch.read_only_connection, or false if it is not set.
+     */
+    private static Boolean isReadOnlyConnection() {
+        Object readOnlyConnection = EntityManagerListener.getEntityManagerFactory().getProperties()
+                .get(READ_ONLY_CONNECTION_PROPERTY);
+        return readOnlyConnection != null && Boolean.parseBoolean(readOnlyConnection.toString());
+    }
+
+    /**
+     * Detaches the managed instance with the identity of an entity if it was loaded in read-only mode. Changes merged
+     * or reattached afterwards are written, instead of being ignored by dirty checking. Other managed entities are
+     * not affected.
+     *
+     * @param entityManager entity manager with an active transaction
+     * @param entity        entity instance about to be written
+     */
+    public static void release(EntityManager entityManager, Object entity) {
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        EntityPersister persister = session.getEntityPersister(null, entity);
+        Serializable id = persister.getIdentifier(entity, session);
+
+        if (id == null) {
+            return;
+        }
+
+        PersistenceContext persistenceContext = session.getPersistenceContext();
+        Object managedEntity = persistenceContext.getEntity(session.generateEntityKey(id, persister));
+
+        if (managedEntity != null && persistenceContext.isReadOnly(managedEntity)) {
+            entityManager.detach(managedEntity);
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package altlombardisch.data;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Hibernate statistics of a single request, bound to the current thread. Counts statements, time spent in JDBC,
+ * loaded entities and fetched collections, and how often each statement shape is issued, which reveals N+1 query
+ * patterns.
+ *
+ * @see RequestStatisticsRequestCycleListener
+ */
+public final class RequestStatistics {
+    /**
+     * The statistics bound to the current thread.
+     */
+    private static final ThreadLocal<RequestStatistics> currentStatistics = new ThreadLocal<>();
+
+    /**
+     * Matches parameter lists of IN predicates, so that lists of different length count as one statement shape.
+     */
+    private static final Pattern PARAMETER_LIST_PATTERN = Pattern.compile("\\(\\s*\\?(\\s*,\\s*\\?)+\\s*\\)");
+
+    /**
+     * Matches string and number literals.
+     */
+    private static final Pattern LITERAL_PATTERN = Pattern.compile("'(?:[^']|'')*'|\\b\\d+\\b");
+
+    /**
+     * Matches sequences of whitespace.
+     */
+    private static final Pattern WHITESPACE_PATTERN = Pattern.compile("\\s+");
+
+    /**
+     * Class of the page handling the request, or null.
+     */
+    private Class<?> pageClass;
+
+    /**
+     * Number of prepared JDBC statements.
+     */
+    private int statementCount = 0;
+
+    /**
+     * Time in nanoseconds spent preparing and executing JDBC statements.
+     */
+    private long jdbcTime = 0L;
+
+    /**
+     * Number of loaded entities.
+     */
+    private int entityLoadCount = 0;
+
+    /**
+     * Number of fetched collections.
+     */
+    private int collectionFetchCount = 0;
+
+    /**
+     * Number of executions per normalized statement.
+     */
+    private final Map<String, Integer> statementCounts = new HashMap<>();
+
+    /**
+     * Creates request statistics.
+     */
+    private RequestStatistics() {
+    }
+
+    /**
+     * Creates request statistics and binds them to the current thread.
+     *
+     * @return The new request statistics.
+     */
+    public static RequestStatistics begin() {
+        RequestStatistics statistics = new RequestStatistics();
+        currentStatistics.set(statistics);
+        return statistics;
+    }
+
+    /**
+     * Returns the statistics bound to the current thread.
+     *
+     * @return Request statistics, or null.
+     */
+    public static RequestStatistics get() {
+        return currentStatistics.get();
+    }
+
+    /**
+     * Unbinds these statistics from the current thread.
+     */
+    public void end() {
+        if (currentStatistics.get() == this) {
+            currentStatistics.remove();
+        }
+    }
+
+    /**
+     * Records a prepared statement.
+     *
+     * @param sql SQL of the statement
+     */
+    void addStatement(String sql) {
+        statementCount++;
+        statementCounts.merge(normalize(sql), 1, Integer::sum);
+    }
+
+    /**
+     * Adds time spent in JDBC.
+     *
+     * @param nanoseconds time in nanoseconds
+     */
+    void addJdbcTime(long nanoseconds) {
+        jdbcTime += nanoseconds;
+    }
+
+    /**
+     * Records a loaded entity.
+     */
+    void addEntityLoad() {
+        entityLoadCount++;
+    }
+
+    /**
+     * Records a fetched collection.
+     */
+    void addCollectionFetch() {
+        collectionFetchCount++;
+    }
+
+    /**
+     * Normalizes a statement, so that executions differing only in literals or the length of parameter lists are
+     * counted together.
+     *
+     * @param sql SQL of a statement
+     * @return The normalized statement.
+     */
+    private static String normalize(String sql) {
+        String normalizedSql = LITERAL_PATTERN.matcher(sql).replaceAll("?");
+        normalizedSql = PARAMETER_LIST_PATTERN.matcher(normalizedSql).replaceAll("(?)");
+        return WHITESPACE_PATTERN.matcher(normalizedSql).replaceAll(" ").trim();
+    }
+
+    /**
+     * Returns the class of the page handling the request.
+     *
+     * @return A page class, or null if the request is not handled by a page.
+     */
+    public Class<?> getPageClass() {
+        return pageClass;
+    }
+
+    /**
+     * Sets the class of the page handling the request.
+     *
+     * @param pageClass a page class
+     */
+    public void setPageClass(Class<?> pageClass) {
+        this.pageClass = pageClass;
+    }
+
+    /**
+     * Returns the number of prepared JDBC statements.
+     *
+     * @return Number of statements.
+     */
+    public int getStatementCount() {
+        return statementCount;
+    }
+
+    /**
+     * Returns the time spent preparing and executing JDBC statements.
+     *
+     * @return Time in milliseconds.
+     */
+    public long getJdbcTime() {
+        return TimeUnit.NANOSECONDS.toMillis(jdbcTime);
+    }
+
+    /**
+     * Returns the number of loaded entities.
+     *
+     * @return Number of entities.
+     */
+    public int getEntityLoadCount() {
+        return entityLoadCount;
+    }
+
+    /**
+     * Returns the number of fetched collections.
+     *
+     * @return Number of collections.
+     */
+    public int getCollectionFetchCount() {
+        return collectionFetchCount;
+    }
+
+    /**
+     * Returns normalized statements issued at least a number of times, ordered by descending count.
+     *
+     * @param threshold minimum number of executions
+     * @return A map of normalized statements and their execution counts.
+     */
+    public Map<String, Integer> getRepeatedStatements(int threshold) {
+        Map<String, Integer> repeatedStatements = new LinkedHashMap<>();
+
+        statementCounts.entrySet().stream()
+                .filter(entry -> entry.getValue() >= threshold)
+                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                .forEach(entry -> repeatedStatements.put(entry.getKey(), entry.getValue()));
+        return Collections.unmodifiableMap(repeatedStatements);
+    }
+}
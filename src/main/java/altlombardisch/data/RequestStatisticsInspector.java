@@ -0,0 +1,33 @@
+package altlombardisch.data;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Records statements prepared by Hibernate in the statistics of the current request. Statements are passed on
+ * unchanged.
+ *
+ * @see RequestStatistics
+ */
+public class RequestStatisticsInspector implements StatementInspector {
+    /**
+     * Determines if a deserialized file is compatible with this class.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Records a statement if statistics are bound to the current thread.
+     *
+     * @param sql SQL of the statement
+     * @return The unchanged SQL.
+     */
+    @Override
+    public String inspect(String sql) {
+        RequestStatistics statistics = RequestStatistics.get();
+
+        if (statistics != null) {
+            statistics.addStatement(sql);
+        }
+
+        return sql;
+    }
+}
@@ -0,0 +1,58 @@
+package altlombardisch.data;
+
+import org.hibernate.boot.Metadata;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.InitializeCollectionEventListener;
+import org.hibernate.event.spi.PostLoadEventListener;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+
+/**
+ * Registers event listeners which count loaded entities and fetched collections in the statistics of the current
+ * request. It is discovered through META-INF/services.
+ *
+ * @see RequestStatistics
+ */
+public class RequestStatisticsIntegrator implements Integrator {
+    /**
+     * Appends the counting event listeners.
+     *
+     * @param metadata        metadata of the session factory
+     * @param sessionFactory  the session factory
+     * @param serviceRegistry service registry of the session factory
+     */
+    @Override
+    public void integrate(Metadata metadata, SessionFactoryImplementor sessionFactory,
+                          SessionFactoryServiceRegistry serviceRegistry) {
+        EventListenerRegistry listenerRegistry = serviceRegistry.getService(EventListenerRegistry.class);
+        PostLoadEventListener postLoadListener = event -> {
+            RequestStatistics statistics = RequestStatistics.get();
+
+            if (statistics != null) {
+                statistics.addEntityLoad();
+            }
+        };
+        InitializeCollectionEventListener initializeCollectionListener = event -> {
+            RequestStatistics statistics = RequestStatistics.get();
+
+            if (statistics != null) {
+                statistics.addCollectionFetch();
+            }
+        };
+
+        listenerRegistry.appendListeners(EventType.POST_LOAD, postLoadListener);
+        listenerRegistry.appendListeners(EventType.INIT_COLLECTION, initializeCollectionListener);
+    }
+
+    /**
+     * Does nothing, listeners are dropped with the session factory.
+     *
+     * @param sessionFactory  the session factory
+     * @param serviceRegistry service registry of the session factory
+     */
+    @Override
+    public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+    }
+}
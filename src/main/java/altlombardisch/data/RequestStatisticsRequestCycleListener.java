@@ -0,0 +1,115 @@
+package altlombardisch.data;
+
+import org.apache.wicket.core.request.handler.IPageClassRequestHandler;
+import org.apache.wicket.request.IRequestHandler;
+import org.apache.wicket.request.cycle.AbstractRequestCycleListener;
+import org.apache.wicket.request.cycle.RequestCycle;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+
+/**
+ * A request cycle listener which collects Hibernate statistics for every request. It logs a warning if a request
+ * exceeds a statement or JDBC time threshold or issues the same statement repeatedly, which usually indicates an
+ * N+1 query pattern. Statistics of requests handled by pages are aggregated per page class.
+ *
+ * @see RequestStatistics
+ * @see PageStatistics
+ */
+public class RequestStatisticsRequestCycleListener extends AbstractRequestCycleListener {
+    /**
+     * A logger named corresponding to this class.
+     */
+    private static final Logger logger = LoggerFactory.getLogger(RequestStatisticsRequestCycleListener.class);
+
+    /**
+     * Number of statements per request above which a warning is logged.
+     */
+    private final int statementThreshold;
+
+    /**
+     * Number of executions of the same statement per request from which a warning is logged.
+     */
+    private final int repeatedStatementThreshold;
+
+    /**
+     * Time in milliseconds spent in JDBC per request above which a warning is logged.
+     */
+    private final long jdbcTimeThreshold;
+
+    /**
+     * Creates a request statistics listener.
+     *
+     * @param statementThreshold         number of statements per request above which a warning is logged
+     * @param repeatedStatementThreshold number of executions of the same statement from which a warning is logged
+     * @param jdbcTimeThreshold          time in milliseconds spent in JDBC above which a warning is logged
+     */
+    public RequestStatisticsRequestCycleListener(int statementThreshold, int repeatedStatementThreshold,
+                                                 long jdbcTimeThreshold) {
+        this.statementThreshold = statementThreshold;
+        this.repeatedStatementThreshold = repeatedStatementThreshold;
+        this.jdbcTimeThreshold = jdbcTimeThreshold;
+    }
+
+    /**
+     * Binds new statistics to the thread when a request cycle begins.
+     *
+     * @param cycle the request cycle
+     */
+    @Override
+    public void onBeginRequest(RequestCycle cycle) {
+        RequestStatistics.begin();
+    }
+
+    /**
+     * Remembers the page class of the first resolved request handler that refers to a page.
+     *
+     * @param cycle   the request cycle
+     * @param handler the resolved request handler
+     */
+    @Override
+    public void onRequestHandlerResolved(RequestCycle cycle, IRequestHandler handler) {
+        RequestStatistics statistics = RequestStatistics.get();
+
+        if (statistics != null && statistics.getPageClass() == null && handler instanceof IPageClassRequestHandler) {
+            statistics.setPageClass(((IPageClassRequestHandler) handler).getPageClass());
+        }
+    }
+
+    /**
+     * Unbinds the statistics of a request cycle, checks them against the thresholds and adds them to the statistics
+     * of the page class.
+     *
+     * @param cycle the request cycle
+     */
+    @Override
+    public void onDetach(RequestCycle cycle) {
+        RequestStatistics statistics = RequestStatistics.get();
+
+        if (statistics == null) {
+            return;
+        }
+
+        statistics.end();
+        PageStatistics.add(statistics);
+
+        if (statistics.getStatementCount() > statementThreshold || statistics.getJdbcTime() > jdbcTimeThreshold) {
+            logger.warn("Request {} of {} issued {} statement(s) in {} ms, loaded {} entities and fetched {} "
+                    + "collection(s).", cycle.getRequest().getUrl(), statistics.getPageClass(),
+                    statistics.getStatementCount(), statistics.getJdbcTime(), statistics.getEntityLoadCount(),
+                    statistics.getCollectionFetchCount());
+        } else if (logger.isDebugEnabled()) {
+            logger.debug("Request {} of {} issued {} statement(s) in {} ms, loaded {} entities and fetched {} "
+                    + "collection(s).", cycle.getRequest().getUrl(), statistics.getPageClass(),
+                    statistics.getStatementCount(), statistics.getJdbcTime(), statistics.getEntityLoadCount(),
+                    statistics.getCollectionFetchCount());
+        }
+
+        for (Map.Entry<String, Integer> entry : statistics.getRepeatedStatements(repeatedStatementThreshold)
+                .entrySet()) {
+            logger.warn("Request {} of {} issued a statement {} times, possibly an N+1 query pattern: {}",
+                    cycle.getRequest().getUrl(), statistics.getPageClass(), entry.getValue(), entry.getKey());
+        }
+    }
+}
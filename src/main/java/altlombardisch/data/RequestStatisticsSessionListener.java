@@ -0,0 +1,86 @@
+package altlombardisch.data;
+
+import altlombardisch.metrics.ServerTiming;
+import org.hibernate.BaseSessionEventListener;
+
+/**
+ * Measures the time a session spends preparing and executing JDBC statements and adds it to the statistics and the
+ * server timing of the current request.
+ *
+ * @see RequestStatistics
+ * @see ServerTiming
+ */
+public class RequestStatisticsSessionListener extends BaseSessionEventListener {
+    /**
+     * Determines if a deserialized file is compatible with this class.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Start time in nanoseconds of the current JDBC operation.
+     */
+    private long startTime;
+
+    /**
+     * Called before a statement is prepared.
+     */
+    @Override
+    public void jdbcPrepareStatementStart() {
+        startTime = System.nanoTime();
+    }
+
+    /**
+     * Called after a statement was prepared.
+     */
+    @Override
+    public void jdbcPrepareStatementEnd() {
+        addJdbcTime();
+    }
+
+    /**
+     * Called before a statement is executed.
+     */
+    @Override
+    public void jdbcExecuteStatementStart() {
+        startTime = System.nanoTime();
+    }
+
+    /**
+     * Called after a statement was executed.
+     */
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        addJdbcTime();
+    }
+
+    /**
+     * Called before a batch is executed.
+     */
+    @Override
+    public void jdbcExecuteBatchStart() {
+        startTime = System.nanoTime();
+    }
+
+    /**
+     * Called after a batch was executed.
+     */
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        addJdbcTime();
+    }
+
+    /**
+     * Adds the time since the start of the current JDBC operation to the statistics and the server timing bound to
+     * the current thread.
+     */
+    private void addJdbcTime() {
+        long jdbcTime = System.nanoTime() - startTime;
+        RequestStatistics statistics = RequestStatistics.get();
+
+        if (statistics != null) {
+            statistics.addJdbcTime(jdbcTime);
+        }
+
+        ServerTiming.add(ServerTiming.Metric.DATABASE, jdbcTime / 1e9);
+    }
+}
@@ -0,0 +1,360 @@
+package altlombardisch.data;
+
+import altlombardisch.metrics.DaoEvent;
+import altlombardisch.metrics.Metrics;
+import jdk.jfr.EventType;
+import org.hibernate.StaleObjectStateException;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityTransaction;
+import javax.persistence.OptimisticLockException;
+import javax.persistence.Query;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Proxy;
+import java.lang.reflect.Type;
+import java.util.List;
+
+/**
+ * Wraps the entity manager of a DAO method call, so that the duration and failures of the call are recorded as
+ * metrics. A call lasts from the creation of the entity manager to its close() in the finally block of the DAO
+ * method. A call fails if its transaction is rolled back. While a flight recording with DAO events is running,
+ * calls are also recorded as DaoEvent, and queries are wrapped to count rows.
+ *
+ * @see Metrics#DAO_DURATION
+ * @see Metrics#DAO_ERRORS
+ * @see DaoEvent
+ */
+final class TimedEntityManager {
+    /**
+     * Error type of failed version checks.
+     */
+    private static final String OPTIMISTIC_LOCK_ERROR = "optimistic_lock";
+
+    /**
+     * Error type of other failures.
+     */
+    private static final String OTHER_ERROR = "other";
+
+    /**
+     * Type of DAO events, which tells whether they are recorded.
+     */
+    private static final EventType DAO_EVENT_TYPE = EventType.getEventType(DaoEvent.class);
+
+    /**
+     * Simple names of the entity classes of DAO classes.
+     */
+    private static final ClassValue<String> entityNames = new ClassValue<String>() {
+        /**
+         * Finds the entity class of a DAO class in its generic superclasses.
+         *
+         * @param daoClass DAO class
+         * @return Simple name of the entity class, or an empty string.
+         */
+        @Override
+        protected String computeValue(Class<?> daoClass) {
+            for (Class<?> type = daoClass; type != null; type = type.getSuperclass()) {
+                Type superclass = type.getGenericSuperclass();
+
+                if (superclass instanceof ParameterizedType && ((ParameterizedType) superclass).getRawType()
+                        .equals(GenericDao.class)) {
+                    Type entityType = ((ParameterizedType) superclass).getActualTypeArguments()[0];
+                    return (entityType instanceof Class) ? ((Class<?>) entityType).getSimpleName() : "";
+                }
+            }
+
+            return "";
+        }
+    };
+
+    /**
+     * The wrapped entity manager.
+     */
+    private final EntityManager entityManager;
+
+    /**
+     * DAO class.
+     */
+    private final Class<?> daoClass;
+
+    /**
+     * Simple name of the DAO class.
+     */
+    private final String daoName;
+
+    /**
+     * Name of the DAO method.
+     */
+    private final String methodName;
+
+    /**
+     * Start time in nanoseconds of the DAO method call.
+     */
+    private final long startTime = System.nanoTime();
+
+    /**
+     * The last exception thrown by the entity manager or its transaction, or null.
+     */
+    private RuntimeException exception;
+
+    /**
+     * Whether the transaction was rolled back.
+     */
+    private boolean rolledBack = false;
+
+    /**
+     * Whether the call was already recorded.
+     */
+    private boolean recorded = false;
+
+    /**
+     * Flight recorder event of the call, or null if DAO events are not recorded.
+     */
+    private final DaoEvent event;
+
+    /**
+     * Number of rows read or written by queries, only counted while DAO events are recorded.
+     */
+    private int rows = 0;
+
+    /**
+     * Creates a timed entity manager.
+     *
+     * @param entityManager wrapped entity manager
+     * @param daoClass      DAO class
+     * @param methodName    name of the DAO method
+     */
+    private TimedEntityManager(EntityManager entityManager, Class<?> daoClass, String methodName) {
+        this.entityManager = entityManager;
+        this.daoClass = daoClass;
+        this.daoName = daoClass.getSimpleName();
+        this.methodName = methodName;
+
+        if (DAO_EVENT_TYPE.isEnabled()) {
+            event = new DaoEvent();
+            event.begin();
+        } else {
+            event = null;
+        }
+    }
+
+    /**
+     * Wraps the entity manager of a DAO method call.
+     *
+     * @param entityManager entity manager of the call
+     * @param daoClass      DAO class
+     * @param methodName    name of the DAO method
+     * @return An entity manager recording metrics.
+     */
+    static EntityManager wrap(EntityManager entityManager, Class<?> daoClass, String methodName) {
+        TimedEntityManager timedEntityManager = new TimedEntityManager(entityManager, daoClass, methodName);
+
+        return (EntityManager) Proxy.newProxyInstance(EntityManager.class.getClassLoader(),
+                new Class<?>[]{EntityManager.class}, timedEntityManager.new EntityManagerHandler());
+    }
+
+    /**
+     * Invokes a method on a target object, remembers runtime exceptions and unwraps exceptions thrown by it.
+     *
+     * @param target    target object
+     * @param method    invoked method
+     * @param arguments method arguments
+     * @return The return value of the invoked method.
+     * @throws Throwable the exception thrown by the invoked method
+     */
+    private Object invoke(Object target, Method method, Object[] arguments) throws Throwable {
+        try {
+            return method.invoke(target, arguments);
+        } catch (InvocationTargetException e) {
+            if (e.getTargetException() instanceof RuntimeException) {
+                exception = (RuntimeException) e.getTargetException();
+            }
+
+            throw e.getTargetException();
+        }
+    }
+
+    /**
+     * Records the duration of the call and, if it failed, an error.
+     */
+    private void record() {
+        if (recorded) {
+            return;
+        }
+
+        recorded = true;
+        Metrics.DAO_DURATION.labels(daoName, methodName).observe((System.nanoTime() - startTime) / 1e9);
+
+        if (rolledBack || exception != null) {
+            Metrics.DAO_ERRORS.labels(daoName, methodName, isLockingError() ? OPTIMISTIC_LOCK_ERROR : OTHER_ERROR)
+                    .inc();
+        }
+
+        if (event != null) {
+            event.end();
+
+            if (event.shouldCommit()) {
+                event.setDao(daoName);
+                event.setEntity(entityNames.get(daoClass));
+                event.setOperation(methodName);
+                event.setRows(rows);
+                event.setFailed(rolledBack || exception != null);
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Counts the rows of a query or find result.
+     *
+     * @param method invoked method
+     * @param result return value of the method
+     */
+    private void countRows(Method method, Object result) {
+        if (result instanceof List) {
+            rows += ((List<?>) result).size();
+        } else if (result instanceof Integer && method.getName().equals("executeUpdate")) {
+            rows += (Integer) result;
+        } else if (result != null && (method.getName().equals("find") || method.getName().equals("getSingleResult"))) {
+            rows++;
+        }
+    }
+
+    /**
+     * Checks if the call failed because of a concurrent modification.
+     *
+     * @return True if the last exception or one of its causes is a locking error; false otherwise.
+     */
+    private boolean isLockingError() {
+        for (Throwable cause = exception; cause != null; cause = cause.getCause()) {
+            if (cause instanceof OptimisticLockException || cause instanceof StaleObjectStateException) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Handles calls to the wrapped entity manager.
+     */
+    private class EntityManagerHandler implements InvocationHandler {
+        /**
+         * Delegates calls to the wrapped entity manager. The call is recorded when the entity manager is closed.
+         *
+         * @param proxy     timed entity manager
+         * @param method    invoked method
+         * @param arguments method arguments
+         * @return The return value of the invoked method.
+         * @throws Throwable the exception thrown by the invoked method
+         */
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] arguments) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    record();
+                    return TimedEntityManager.this.invoke(entityManager, method, arguments);
+                case "getTransaction":
+                    return Proxy.newProxyInstance(EntityTransaction.class.getClassLoader(),
+                            new Class<?>[]{EntityTransaction.class},
+                            new TransactionHandler(entityManager.getTransaction()));
+                case "equals":
+                    return proxy == arguments[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    Object result = TimedEntityManager.this.invoke(entityManager, method, arguments);
+
+                    if (event == null) {
+                        return result;
+                    } else if (result instanceof Query && method.getReturnType().isInterface()) {
+                        return Proxy.newProxyInstance(EntityManager.class.getClassLoader(),
+                                new Class<?>[]{method.getReturnType()}, new QueryHandler(result));
+                    }
+
+                    countRows(method, result);
+                    return result;
+            }
+        }
+    }
+
+    /**
+     * Handles calls to queries while DAO events are recorded.
+     */
+    private class QueryHandler implements InvocationHandler {
+        /**
+         * The query calls are delegated to.
+         */
+        private final Object query;
+
+        /**
+         * Creates a query handler.
+         *
+         * @param query query calls are delegated to
+         */
+        QueryHandler(Object query) {
+            this.query = query;
+        }
+
+        /**
+         * Delegates calls to a query and counts the rows of its results. Calls returning the query itself return the
+         * proxy, so that chained calls stay wrapped, except for unwrap().
+         *
+         * @param proxy     query proxy
+         * @param method    invoked method
+         * @param arguments method arguments
+         * @return The return value of the invoked method.
+         * @throws Throwable the exception thrown by the invoked method
+         */
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] arguments) throws Throwable {
+            Object result = TimedEntityManager.this.invoke(query, method, arguments);
+
+            if (result == query && !method.getName().equals("unwrap")) {
+                return proxy;
+            }
+
+            countRows(method, result);
+            return result;
+        }
+    }
+
+    /**
+     * Handles calls to transactions of the wrapped entity manager.
+     */
+    private class TransactionHandler implements InvocationHandler {
+        /**
+         * The transaction calls are delegated to.
+         */
+        private final EntityTransaction transaction;
+
+        /**
+         * Creates a transaction handler.
+         *
+         * @param transaction transaction calls are delegated to
+         */
+        TransactionHandler(EntityTransaction transaction) {
+            this.transaction = transaction;
+        }
+
+        /**
+         * Delegates calls to a transaction and remembers rollbacks.
+         *
+         * @param proxy     transaction proxy
+         * @param method    invoked method
+         * @param arguments method arguments
+         * @return The return value of the invoked method.
+         * @throws Throwable the exception thrown by the invoked method
+         */
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] arguments) throws Throwable {
+            if (method.getName().equals("rollback")) {
+                rolledBack = true;
+            }
+
+            return TimedEntityManager.this.invoke(transaction, method, arguments);
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package altlombardisch.data;
+
+import org.hibernate.BaseSessionEventListener;
+import org.hibernate.Session;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityTransaction;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+/**
+ * A unit of work which binds one entity manager to the current thread. All DAOs running on the thread reuse this
+ * entity manager and its JDBC connection until the unit of work ends.
+ *
+ * @see UnitOfWorkRequestCycleListener
+ */
+public final class UnitOfWork {
+    /**
+     * The unit of work bound to the current thread.
+     */
+    private static final ThreadLocal<UnitOfWork> currentUnitOfWork = new ThreadLocal<>();
+
+    /**
+     * The entity manager of this unit of work, created on first use.
+     */
+    private EntityManager entityManager;
+
+    /**
+     * A view of the entity manager that is handed out to DAOs.
+     */
+    private EntityManager boundEntityManager;
+
+    /**
+     * Number of JDBC connections acquired by this unit of work.
+     */
+    private int connectionCount = 0;
+
+    /**
+     * Number of transactions begun in this unit of work.
+     */
+    private int transactionCount = 0;
+
+    /**
+     * Creates a unit of work.
+     */
+    private UnitOfWork() {
+    }
+
+    /**
+     * Begins a unit of work and binds it to the current thread.
+     *
+     * @return The new unit of work.
+     * @throws IllegalStateException if a unit of work is already bound to the current thread
+     */
+    public static UnitOfWork begin() {
+        if (currentUnitOfWork.get() != null) {
+            throw new IllegalStateException("A unit of work is already bound to the current thread.");
+        }
+
+        UnitOfWork unitOfWork = new UnitOfWork();
+        currentUnitOfWork.set(unitOfWork);
+        return unitOfWork;
+    }
+
+    /**
+     * Returns the unit of work bound to the current thread.
+     *
+     * @return A unit of work, or null.
+     */
+    public static UnitOfWork get() {
+        return currentUnitOfWork.get();
+    }
+
+    /**
+     * Ends this unit of work. Closes its entity manager and unbinds it from the current thread.
+     */
+    public void end() {
+        try {
+            if (entityManager != null && entityManager.isOpen()) {
+                EntityTransaction transaction = entityManager.getTransaction();
+
+                if (transaction.isActive()) {
+                    transaction.rollback();
+                }
+
+                entityManager.close();
+            }
+        } finally {
+            entityManager = null;
+            boundEntityManager = null;
+
+            if (currentUnitOfWork.get() == this) {
+                currentUnitOfWork.remove();
+            }
+        }
+    }
+
+    /**
+     * Returns the number of JDBC connections acquired by this unit of work.
+     *
+     * @return Number of connections.
+     */
+    public int getConnectionCount() {
+        return connectionCount;
+    }
+
+    /**
+     * Returns the number of transactions begun in this unit of work.
+     *
+     * @return Number of transactions.
+     */
+    public int getTransactionCount() {
+        return transactionCount;
+    }
+
+    /**
+     * Returns the entity manager of this unit of work. The returned entity manager ignores calls to close(), so DAOs
+     * can treat it like an entity manager of their own.
+     *
+     * @return An entity manager.
+     */
+    EntityManager getEntityManager() {
+        if (boundEntityManager == null) {
+            entityManager = EntityManagerListener.getEntityManagerFactory().createEntityManager();
+            entityManager.unwrap(Session.class).addEventListeners(new ConnectionCountingListener());
+            boundEntityManager = (EntityManager) Proxy.newProxyInstance(EntityManager.class.getClassLoader(),
+                    new Class<?>[]{EntityManager.class}, new EntityManagerHandler());
+        }
+
+        return boundEntityManager;
+    }
+
+    /**
+     * Invokes a method on a target object and unwraps exceptions thrown by it.
+     *
+     * @param target    target object
+     * @param method    invoked method
+     * @param arguments method arguments
+     * @return The return value of the invoked method.
+     * @throws Throwable the exception thrown by the invoked method
+     */
+    private static Object invoke(Object target, Method method, Object[] arguments) throws Throwable {
+        try {
+            return method.invoke(target, arguments);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    /**
+     * Handles calls to the bound entity manager.
+     */
+    private class EntityManagerHandler implements InvocationHandler {
+        /**
+         * Delegates calls to the entity manager of the unit of work. Calls to close() are ignored and transactions
+         * are counted.
+         *
+         * @param proxy     bound entity manager
+         * @param method    invoked method
+         * @param arguments method arguments
+         * @return The return value of the invoked method.
+         * @throws Throwable the exception thrown by the invoked method
+         */
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] arguments) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    return null;
+                case "getTransaction":
+                    return Proxy.newProxyInstance(EntityTransaction.class.getClassLoader(),
+                            new Class<?>[]{EntityTransaction.class},
+                            new TransactionHandler(entityManager.getTransaction()));
+                case "equals":
+                    return proxy == arguments[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    return UnitOfWork.invoke(entityManager, method, arguments);
+            }
+        }
+    }
+
+    /**
+     * Handles calls to transactions of the bound entity manager.
+     */
+    private class TransactionHandler implements InvocationHandler {
+        /**
+         * The transaction calls are delegated to.
+         */
+        private final EntityTransaction transaction;
+
+        /**
+         * Creates a transaction handler.
+         *
+         * @param transaction transaction calls are delegated to
+         */
+        TransactionHandler(EntityTransaction transaction) {
+            this.transaction = transaction;
+        }
+
+        /**
+         * Delegates calls to a transaction. Begun transactions are counted and the persistence context is cleared
+         * after a rollback, so that later DAO calls of the unit of work don’t see rolled back state.
+         *
+         * @param proxy     transaction proxy
+         * @param method    invoked method
+         * @param arguments method arguments
+         * @return The return value of the invoked method.
+         * @throws Throwable the exception thrown by the invoked method
+         */
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] arguments) throws Throwable {
+            Object result = UnitOfWork.invoke(transaction, method, arguments);
+
+            if (method.getName().equals("begin")) {
+                transactionCount++;
+            } else if (method.getName().equals("rollback")) {
+                entityManager.clear();
+            }
+
+            return result;
+        }
+    }
+
+    /**
+     * Counts JDBC connections acquired by a session.
+     */
+    private class ConnectionCountingListener extends BaseSessionEventListener {
+        /**
+         * Determines if a deserialized file is compatible with this class.
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Called when a JDBC connection was acquired.
+         */
+        @Override
+        public void jdbcConnectionAcquisitionEnd() {
+            connectionCount++;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package altlombardisch.data;
+
+import org.apache.wicket.request.cycle.AbstractRequestCycleListener;
+import org.apache.wicket.request.cycle.RequestCycle;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A request cycle listener which binds a unit of work to every request. DAOs called while handling a request share
+ * one entity manager and one JDBC connection.
+ *
+ * @see UnitOfWork
+ */
+public class UnitOfWorkRequestCycleListener extends AbstractRequestCycleListener {
+    /**
+     * A logger named corresponding to this class.
+     */
+    private static final Logger logger = LoggerFactory.getLogger(UnitOfWorkRequestCycleListener.class);
+
+    /**
+     * Begins a unit of work when a request cycle begins.
+     *
+     * @param cycle the request cycle
+     */
+    @Override
+    public void onBeginRequest(RequestCycle cycle) {
+        if (UnitOfWork.get() == null) {
+            UnitOfWork.begin();
+        }
+    }
+
+    /**
+     * Ends the unit of work of a request cycle and logs its number of connections and transactions.
+     *
+     * @param cycle the request cycle
+     */
+    @Override
+    public void onDetach(RequestCycle cycle) {
+        UnitOfWork unitOfWork = UnitOfWork.get();
+
+        if (unitOfWork != null) {
+            unitOfWork.end();
+
+            if (logger.isDebugEnabled()) {
+                logger.debug("Request {} used {} connection(s) and {} transaction(s).",
+                        cycle.getRequest().getUrl(), unitOfWork.getConnectionCount(),
+                        unitOfWork.getTransactionCount());
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package altlombardisch.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A flight recorder event for refreshing the items of an Ajax view.
+ */
+@Category({"Altlombardisch", "Wicket"})
+@Description("Refreshing the items of an Ajax view, including loading their models.")
+@Label("Ajax View Refresh")
+@Name("altlombardisch.AjaxViewRefresh")
+public class AjaxViewRefreshEvent extends Event {
+    /**
+     * Name of the Ajax view class.
+     */
+    @Label("View")
+    private String view;
+
+    /**
+     * Number of items after the refresh.
+     */
+    @Label("Items")
+    private int itemCount;
+
+    /**
+     * Sets the name of the Ajax view class.
+     *
+     * @param view name of the Ajax view class
+     */
+    public void setView(String view) {
+        this.view = view;
+    }
+
+    /**
+     * Sets the number of items after the refresh.
+     *
+     * @param itemCount number of items
+     */
+    public void setItemCount(int itemCount) {
+        this.itemCount = itemCount;
+    }
+}
@@ -0,0 +1,54 @@
+package altlombardisch.metrics;
+
+import com.mchange.v2.c3p0.C3P0Registry;
+import com.mchange.v2.c3p0.PooledDataSource;
+import io.prometheus.client.Collector;
+import io.prometheus.client.GaugeMetricFamily;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Collects the usage of c3p0 connection pools when metrics are scraped.
+ */
+public class ConnectionPoolCollector extends Collector {
+    /**
+     * A logger named corresponding to this class.
+     */
+    private static final Logger logger = LoggerFactory.getLogger(ConnectionPoolCollector.class);
+
+    /**
+     * Returns busy and idle connections and threads waiting for a connection per pool.
+     *
+     * @return A list of metric families.
+     */
+    @Override
+    public List<MetricFamilySamples> collect() {
+        GaugeMetricFamily connections = new GaugeMetricFamily("cms_connection_pool_connections",
+                "Connections of the connection pool by state.", Arrays.asList("pool", "state"));
+        GaugeMetricFamily waitingThreads = new GaugeMetricFamily("cms_connection_pool_waiting_threads",
+                "Threads waiting for a connection.", Collections.singletonList("pool"));
+
+        for (Object dataSource : C3P0Registry.getPooledDataSources()) {
+            PooledDataSource pooledDataSource = (PooledDataSource) dataSource;
+            String poolName = pooledDataSource.getDataSourceName();
+
+            try {
+                connections.addMetric(Arrays.asList(poolName, "busy"),
+                        pooledDataSource.getNumBusyConnectionsDefaultUser());
+                connections.addMetric(Arrays.asList(poolName, "idle"),
+                        pooledDataSource.getNumIdleConnectionsDefaultUser());
+                waitingThreads.addMetric(Collections.singletonList(poolName),
+                        pooledDataSource.getNumThreadsAwaitingCheckoutDefaultUser());
+            } catch (SQLException e) {
+                logger.warn("Usage of connection pool {} is not available.", poolName, e);
+            }
+        }
+
+        return Arrays.asList(connections, waitingThreads);
+    }
+}
@@ -0,0 +1,92 @@
+package altlombardisch.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A flight recorder event for a DAO method call.
+ */
+@Category({"Altlombardisch", "Persistence"})
+@Description("A DAO method call, from the creation of its entity manager to its close.")
+@Label("DAO Call")
+@Name("altlombardisch.DaoCall")
+public class DaoEvent extends Event {
+    /**
+     * Simple name of the DAO class.
+     */
+    @Label("DAO")
+    private String dao;
+
+    /**
+     * Simple name of the entity class.
+     */
+    @Label("Entity")
+    private String entity;
+
+    /**
+     * Name of the DAO method.
+     */
+    @Label("Operation")
+    private String operation;
+
+    /**
+     * Number of rows read or written by queries.
+     */
+    @Description("Rows returned by queries and finds and rows affected by bulk updates.")
+    @Label("Rows")
+    private int rows;
+
+    /**
+     * Whether the transaction was rolled back.
+     */
+    @Label("Failed")
+    private boolean failed;
+
+    /**
+     * Sets the simple name of the DAO class.
+     *
+     * @param dao simple name of the DAO class
+     */
+    public void setDao(String dao) {
+        this.dao = dao;
+    }
+
+    /**
+     * Sets the simple name of the entity class.
+     *
+     * @param entity simple name of the entity class
+     */
+    public void setEntity(String entity) {
+        this.entity = entity;
+    }
+
+    /**
+     * Sets the name of the DAO method.
+     *
+     * @param operation name of the DAO method
+     */
+    public void setOperation(String operation) {
+        this.operation = operation;
+    }
+
+    /**
+     * Sets the number of rows read or written by queries.
+     *
+     * @param rows number of rows
+     */
+    public void setRows(int rows) {
+        this.rows = rows;
+    }
+
+    /**
+     * Sets whether the transaction was rolled back.
+     *
+     * @param failed whether the transaction was rolled back
+     */
+    public void setFailed(boolean failed) {
+        this.failed = failed;
+    }
+}
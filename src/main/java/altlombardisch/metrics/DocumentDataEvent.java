@@ -0,0 +1,46 @@
+package altlombardisch.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A flight recorder event for building the JSON data of a XML document definition.
+ */
+@Category({"Altlombardisch", "XML"})
+@Description("Building the JSON data of a XML document definition for the XML editor.")
+@Label("Document Data")
+@Name("altlombardisch.DocumentData")
+public class DocumentDataEvent extends Event {
+    /**
+     * Identifier of the document definition.
+     */
+    @Label("Identifier")
+    private String identifier;
+
+    /**
+     * Number of tag definitions.
+     */
+    @Label("Tags")
+    private int tagCount;
+
+    /**
+     * Sets the identifier of the document definition.
+     *
+     * @param identifier identifier of the document definition
+     */
+    public void setIdentifier(String identifier) {
+        this.identifier = identifier;
+    }
+
+    /**
+     * Sets the number of tag definitions.
+     *
+     * @param tagCount number of tag definitions
+     */
+    public void setTagCount(int tagCount) {
+        this.tagCount = tagCount;
+    }
+}
@@ -0,0 +1,91 @@
+package altlombardisch.metrics;
+
+import io.prometheus.client.Counter;
+import io.prometheus.client.Gauge;
+import io.prometheus.client.Histogram;
+import io.prometheus.client.Summary;
+
+/**
+ * Metrics of the application, registered with the default collector registry and exported by the metrics
+ * resource.
+ *
+ * @see MetricsResource
+ */
+public final class Metrics {
+    /**
+     * Latency of requests per page class.
+     */
+    public static final Histogram REQUEST_DURATION = Histogram.build()
+            .name("cms_request_duration_seconds")
+            .help("Latency of requests per page class.")
+            .labelNames("page")
+            .buckets(0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1.0, 2.5, 5.0, 10.0)
+            .register();
+
+    /**
+     * Duration of DAO method calls.
+     */
+    public static final Histogram DAO_DURATION = Histogram.build()
+            .name("cms_dao_duration_seconds")
+            .help("Duration of DAO method calls.")
+            .labelNames("dao", "method")
+            .buckets(0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1.0)
+            .register();
+
+    /**
+     * Failed DAO method calls by error type, either optimistic_lock or other.
+     */
+    public static final Counter DAO_ERRORS = Counter.build()
+            .name("cms_dao_errors_total")
+            .help("Failed DAO method calls by error type.")
+            .labelNames("dao", "method", "type")
+            .register();
+
+    /**
+     * Duration of XML operations: xsd_compile, xsd_validation, xslt_compile and xslt_transform.
+     */
+    public static final Histogram XML_DURATION = Histogram.build()
+            .name("cms_xml_duration_seconds")
+            .help("Duration of XSD and XSLT operations.")
+            .labelNames("operation")
+            .buckets(0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1.0)
+            .register();
+
+    /**
+     * Lookups of caches of compiled or computed XML data by cache and result, either hit or miss.
+     */
+    public static final Counter XML_CACHE = Counter.build()
+            .name("cms_xml_cache_lookups_total")
+            .help("Lookups of XML caches by result.")
+            .labelNames("cache", "result")
+            .register();
+
+    /**
+     * Number of HTTP sessions.
+     */
+    public static final Gauge SESSIONS = Gauge.build()
+            .name("cms_sessions")
+            .help("Number of HTTP sessions.")
+            .register();
+
+    /**
+     * Serialized size of sampled Wicket sessions.
+     */
+    public static final Summary SESSION_SIZE = Summary.build()
+            .name("cms_session_size_bytes")
+            .help("Serialized size of sampled Wicket sessions.")
+            .quantile(0.5, 0.05)
+            .quantile(0.99, 0.01)
+            .register();
+
+    /**
+     * Connections of the connection pool.
+     */
+    public static final ConnectionPoolCollector CONNECTION_POOL = new ConnectionPoolCollector().register();
+
+    /**
+     * Prevents instantiation.
+     */
+    private Metrics() {
+    }
+}
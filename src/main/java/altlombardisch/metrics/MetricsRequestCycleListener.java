@@ -0,0 +1,93 @@
+package altlombardisch.metrics;
+
+import org.apache.wicket.MetaDataKey;
+import org.apache.wicket.Session;
+import org.apache.wicket.core.request.handler.IPageClassRequestHandler;
+import org.apache.wicket.core.util.lang.WicketObjects;
+import org.apache.wicket.request.IRequestHandler;
+import org.apache.wicket.request.cycle.AbstractRequestCycleListener;
+import org.apache.wicket.request.cycle.RequestCycle;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A request cycle listener which records the latency of requests per page class and samples the size of sessions.
+ */
+public class MetricsRequestCycleListener extends AbstractRequestCycleListener {
+    /**
+     * Label of requests not handled by a page.
+     */
+    private static final String NO_PAGE = "none";
+
+    /**
+     * One in this many requests measures the size of its session, which requires serializing it.
+     */
+    private static final int SESSION_SIZE_SAMPLE_RATE = 100;
+
+    /**
+     * Key of the start time of a request cycle.
+     */
+    private static final MetaDataKey<Long> START_TIME = new MetaDataKey<Long>() {
+        /**
+         * Determines if a deserialized file is compatible with this class.
+         */
+        private static final long serialVersionUID = 1L;
+    };
+
+    /**
+     * Key of the page class of a request cycle.
+     */
+    private static final MetaDataKey<String> PAGE_CLASS = new MetaDataKey<String>() {
+        /**
+         * Determines if a deserialized file is compatible with this class.
+         */
+        private static final long serialVersionUID = 1L;
+    };
+
+    /**
+     * Remembers the start time of a request cycle.
+     *
+     * @param cycle the request cycle
+     */
+    @Override
+    public void onBeginRequest(RequestCycle cycle) {
+        cycle.setMetaData(START_TIME, System.nanoTime());
+    }
+
+    /**
+     * Remembers the page class of the first resolved request handler that refers to a page.
+     *
+     * @param cycle   the request cycle
+     * @param handler the resolved request handler
+     */
+    @Override
+    public void onRequestHandlerResolved(RequestCycle cycle, IRequestHandler handler) {
+        if (cycle.getMetaData(PAGE_CLASS) == null && handler instanceof IPageClassRequestHandler) {
+            cycle.setMetaData(PAGE_CLASS, ((IPageClassRequestHandler) handler).getPageClass().getSimpleName());
+        }
+    }
+
+    /**
+     * Records the latency of a request cycle and samples the size of its session.
+     *
+     * @param cycle the request cycle
+     */
+    @Override
+    public void onEndRequest(RequestCycle cycle) {
+        Long startTime = cycle.getMetaData(START_TIME);
+        String pageClass = cycle.getMetaData(PAGE_CLASS);
+
+        if (startTime != null) {
+            Metrics.REQUEST_DURATION.labels(pageClass != null ? pageClass : NO_PAGE)
+                    .observe((System.nanoTime() - startTime) / 1e9);
+        }
+
+        if (Session.exists() && ThreadLocalRandom.current().nextInt(SESSION_SIZE_SAMPLE_RATE) == 0) {
+            long sessionSize = WicketObjects.sizeof(Session.get());
+
+            if (sessionSize >= 0) {
+                Metrics.SESSION_SIZE.observe(sessionSize);
+            }
+        }
+    }
+}
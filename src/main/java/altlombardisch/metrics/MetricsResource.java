@@ -0,0 +1,50 @@
+package altlombardisch.metrics;
+
+import altlombardisch.auth.UserRoles;
+import io.prometheus.client.CollectorRegistry;
+import io.prometheus.client.exporter.common.TextFormat;
+import org.apache.wicket.authroles.authorization.strategies.role.annotations.AuthorizeResource;
+import org.apache.wicket.request.resource.AbstractResource;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A resource which exports all registered metrics in the Prometheus text format. Only administrators may read it;
+ * other requests are answered with 403 Forbidden by the role authorization strategy of the application.
+ */
+@AuthorizeResource(UserRoles.ADMIN)
+public class MetricsResource extends AbstractResource {
+    /**
+     * Determines if a deserialized file is compatible with this class.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Creates a response writing the current samples of all metrics.
+     *
+     * @param attributes request attributes
+     * @return A resource response.
+     */
+    @Override
+    protected ResourceResponse newResourceResponse(Attributes attributes) {
+        ResourceResponse response = new ResourceResponse();
+
+        response.setContentType(TextFormat.CONTENT_TYPE_004);
+        response.disableCaching();
+        response.setWriteCallback(new WriteCallback() {
+            @Override
+            public void writeData(Attributes attributes) throws IOException {
+                Writer writer = new OutputStreamWriter(attributes.getResponse().getOutputStream(),
+                        StandardCharsets.UTF_8);
+
+                TextFormat.write004(writer, CollectorRegistry.defaultRegistry.metricFamilySamples());
+                writer.flush();
+            }
+        });
+
+        return response;
+    }
+}
@@ -0,0 +1,209 @@
+package altlombardisch.metrics;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Time spent in parts of a single request, bound to the current thread. The totals are sent in a Server-Timing
+ * header and written to the access log.
+ *
+ * @see ServerTimingFilter
+ */
+public final class ServerTiming {
+    /**
+     * Parts of a request whose time is measured.
+     */
+    public enum Metric {
+        /**
+         * Preparing and executing JDBC statements.
+         */
+        DATABASE("db", "Database"),
+
+        /**
+         * Compiling XML schemas and validating against them.
+         */
+        XSD("xsd", "XSD validation"),
+
+        /**
+         * Compiling and applying XSL transformations.
+         */
+        XSLT("xslt", "XSLT"),
+
+        /**
+         * Executing Wicket request handlers, including rendering.
+         */
+        RENDER("render", "Wicket rendering"),
+
+        /**
+         * Serializing pages for the page store.
+         */
+        SERIALIZATION("serialize", "Page serialization");
+
+        /**
+         * Name of the metric in the header.
+         */
+        private final String name;
+
+        /**
+         * Description of the metric in the header.
+         */
+        private final String description;
+
+        /**
+         * Creates a metric.
+         *
+         * @param name        name of the metric in the header
+         * @param description description of the metric in the header
+         */
+        Metric(String name, String description) {
+            this.name = name;
+            this.description = description;
+        }
+    }
+
+    /**
+     * The timing bound to the current thread.
+     */
+    private static final ThreadLocal<ServerTiming> currentTiming = new ThreadLocal<>();
+
+    /**
+     * Start time in nanoseconds of the request.
+     */
+    private final long startTime = System.nanoTime();
+
+    /**
+     * Accumulated time in seconds per metric.
+     */
+    private final Map<Metric, Double> durations = new EnumMap<>(Metric.class);
+
+    /**
+     * Start time in nanoseconds of the running request handler, or 0.
+     */
+    private long renderStartTime = 0L;
+
+    /**
+     * Creates a server timing.
+     */
+    private ServerTiming() {
+    }
+
+    /**
+     * Creates a server timing and binds it to the current thread.
+     *
+     * @return The new server timing.
+     */
+    static ServerTiming begin() {
+        ServerTiming timing = new ServerTiming();
+        currentTiming.set(timing);
+        return timing;
+    }
+
+    /**
+     * Returns the timing bound to the current thread.
+     *
+     * @return A server timing, or null.
+     */
+    static ServerTiming get() {
+        return currentTiming.get();
+    }
+
+    /**
+     * Unbinds this timing from the current thread.
+     */
+    void end() {
+        if (currentTiming.get() == this) {
+            currentTiming.remove();
+        }
+    }
+
+    /**
+     * Adds time to a metric of the timing bound to the current thread. Does nothing if no timing is bound.
+     *
+     * @param metric  measured metric
+     * @param seconds time in seconds
+     */
+    public static void add(Metric metric, double seconds) {
+        ServerTiming timing = currentTiming.get();
+
+        if (timing != null) {
+            timing.durations.merge(metric, seconds, Double::sum);
+        }
+    }
+
+    /**
+     * Marks the start of a request handler.
+     */
+    void startRender() {
+        stopRender();
+        renderStartTime = System.nanoTime();
+    }
+
+    /**
+     * Marks the end of a request handler and adds its time to the render metric.
+     */
+    void stopRender() {
+        if (renderStartTime != 0L) {
+            durations.merge(Metric.RENDER, (System.nanoTime() - renderStartTime) / 1e9, Double::sum);
+            renderStartTime = 0L;
+        }
+    }
+
+    /**
+     * Returns the time of a metric including a running request handler.
+     *
+     * @param metric a metric
+     * @return Time in milliseconds.
+     */
+    private double getDuration(Metric metric) {
+        double seconds = durations.getOrDefault(metric, 0.0);
+
+        if (metric == Metric.RENDER && renderStartTime != 0L) {
+            seconds += (System.nanoTime() - renderStartTime) / 1e9;
+        }
+
+        return seconds * 1000.0;
+    }
+
+    /**
+     * Returns the time since the start of the request.
+     *
+     * @return Time in milliseconds.
+     */
+    private double getTotalDuration() {
+        return (System.nanoTime() - startTime) / 1e6;
+    }
+
+    /**
+     * Returns the value of a Server-Timing header. Metrics without measured time are left out.
+     *
+     * @return A header value.
+     */
+    String toHeader() {
+        StringBuilder header = new StringBuilder();
+
+        for (Metric metric : Metric.values()) {
+            if (durations.containsKey(metric) || (metric == Metric.RENDER && renderStartTime != 0L)) {
+                header.append(String.format(Locale.ROOT, "%s;dur=%.1f;desc=\"%s\", ", metric.name,
+                        getDuration(metric), metric.description));
+            }
+        }
+
+        return header.append(String.format(Locale.ROOT, "total;dur=%.1f", getTotalDuration())).toString();
+    }
+
+    /**
+     * Returns the metrics as space-separated key-value pairs for a log line.
+     *
+     * @return Key-value pairs of times in milliseconds.
+     */
+    String toLogFields() {
+        StringBuilder fields = new StringBuilder(String.format(Locale.ROOT, "total=%.1f", getTotalDuration()));
+
+        for (Metric metric : Metric.values()) {
+            fields.append(String.format(Locale.ROOT, " %s=%.1f", metric.name, getDuration(metric)));
+        }
+
+        return fields.toString();
+    }
+}
@@ -0,0 +1,74 @@
+package altlombardisch.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.servlet.*;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * A filter which measures the parts of a request, sends them in a Server-Timing header and writes an access log
+ * line once the request is complete. Page serialization happens after the response is sent, so it only shows up in
+ * the access log.
+ *
+ * @see ServerTiming
+ */
+public class ServerTimingFilter implements Filter {
+    /**
+     * A logger named corresponding to this class.
+     */
+    private static final Logger logger = LoggerFactory.getLogger(ServerTimingFilter.class);
+
+    /**
+     * Does nothing.
+     *
+     * @param filterConfig filter configuration
+     */
+    @Override
+    public void init(FilterConfig filterConfig) {
+    }
+
+    /**
+     * Binds a timing to the request, passes the request on and logs it.
+     *
+     * @param request  the request
+     * @param response the response
+     * @param chain    the filter chain
+     * @throws IOException      if an I/O error occurs
+     * @throws ServletException if the request could not be handled
+     */
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        if (!(request instanceof HttpServletRequest) || !(response instanceof HttpServletResponse)
+                || ServerTiming.get() != null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        HttpServletRequest httpRequest = (HttpServletRequest) request;
+        ServerTiming timing = ServerTiming.begin();
+        ServerTimingResponse timingResponse = new ServerTimingResponse((HttpServletResponse) response, timing);
+
+        try {
+            chain.doFilter(request, timingResponse);
+            timingResponse.addTimingHeader();
+        } finally {
+            timing.end();
+
+            if (logger.isInfoEnabled()) {
+                logger.info("method={} uri=\"{}\" status={} {}", httpRequest.getMethod(),
+                        httpRequest.getRequestURI(), timingResponse.getStatus(), timing.toLogFields());
+            }
+        }
+    }
+
+    /**
+     * Does nothing.
+     */
+    @Override
+    public void destroy() {
+    }
+}
@@ -0,0 +1,56 @@
+package altlombardisch.metrics;
+
+import org.apache.wicket.request.IRequestHandler;
+import org.apache.wicket.request.cycle.AbstractRequestCycleListener;
+import org.apache.wicket.request.cycle.RequestCycle;
+
+/**
+ * A request cycle listener which measures the time request handlers take, which is mostly rendering.
+ *
+ * @see ServerTiming.Metric#RENDER
+ */
+public class ServerTimingRequestCycleListener extends AbstractRequestCycleListener {
+    /**
+     * Starts measuring a request handler.
+     *
+     * @param cycle   the request cycle
+     * @param handler the resolved request handler
+     */
+    @Override
+    public void onRequestHandlerResolved(RequestCycle cycle, IRequestHandler handler) {
+        ServerTiming timing = ServerTiming.get();
+
+        if (timing != null) {
+            timing.startRender();
+        }
+    }
+
+    /**
+     * Stops measuring a request handler.
+     *
+     * @param cycle   the request cycle
+     * @param handler the executed request handler
+     */
+    @Override
+    public void onRequestHandlerExecuted(RequestCycle cycle, IRequestHandler handler) {
+        ServerTiming timing = ServerTiming.get();
+
+        if (timing != null) {
+            timing.stopRender();
+        }
+    }
+
+    /**
+     * Stops measuring a request handler that did not complete.
+     *
+     * @param cycle the request cycle
+     */
+    @Override
+    public void onEndRequest(RequestCycle cycle) {
+        ServerTiming timing = ServerTiming.get();
+
+        if (timing != null) {
+            timing.stopRender();
+        }
+    }
+}
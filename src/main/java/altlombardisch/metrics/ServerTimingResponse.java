@@ -0,0 +1,116 @@
+package altlombardisch.metrics;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * A response which adds a Server-Timing header right before content is written or the response is committed
+ * otherwise. Wicket renders pages and Ajax responses into buffers first, so the header covers rendering.
+ */
+class ServerTimingResponse extends HttpServletResponseWrapper {
+    /**
+     * Timing of the request.
+     */
+    private final ServerTiming timing;
+
+    /**
+     * Whether the header was added.
+     */
+    private boolean headerAdded = false;
+
+    /**
+     * Creates a server timing response.
+     *
+     * @param response wrapped response
+     * @param timing   timing of the request
+     */
+    ServerTimingResponse(HttpServletResponse response, ServerTiming timing) {
+        super(response);
+        this.timing = timing;
+    }
+
+    /**
+     * Adds the Server-Timing header if it was not added yet and the response is not committed.
+     */
+    void addTimingHeader() {
+        if (!headerAdded && !isCommitted()) {
+            setHeader("Server-Timing", timing.toHeader());
+            headerAdded = true;
+        }
+    }
+
+    /**
+     * Adds the header and returns the output stream.
+     *
+     * @return The output stream of the response.
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+        addTimingHeader();
+        return super.getOutputStream();
+    }
+
+    /**
+     * Adds the header and returns the writer.
+     *
+     * @return The writer of the response.
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public PrintWriter getWriter() throws IOException {
+        addTimingHeader();
+        return super.getWriter();
+    }
+
+    /**
+     * Adds the header and flushes the buffer.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void flushBuffer() throws IOException {
+        addTimingHeader();
+        super.flushBuffer();
+    }
+
+    /**
+     * Adds the header and sends a redirect.
+     *
+     * @param location redirect location
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void sendRedirect(String location) throws IOException {
+        addTimingHeader();
+        super.sendRedirect(location);
+    }
+
+    /**
+     * Adds the header and sends an error.
+     *
+     * @param status status code
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void sendError(int status) throws IOException {
+        addTimingHeader();
+        super.sendError(status);
+    }
+
+    /**
+     * Adds the header and sends an error.
+     *
+     * @param status  status code
+     * @param message error message
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void sendError(int status, String message) throws IOException {
+        addTimingHeader();
+        super.sendError(status, message);
+    }
+}
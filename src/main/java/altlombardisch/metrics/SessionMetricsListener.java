@@ -0,0 +1,32 @@
+package altlombardisch.metrics;
+
+import javax.servlet.annotation.WebListener;
+import javax.servlet.http.HttpSessionEvent;
+import javax.servlet.http.HttpSessionListener;
+
+/**
+ * Listener for receiving notification events about HttpSession lifecycle changes. Keeps the session gauge up to
+ * date.
+ */
+@WebListener
+public class SessionMetricsListener implements HttpSessionListener {
+    /**
+     * Counts a created session.
+     *
+     * @param sessionEvent event containing the created session
+     */
+    @Override
+    public void sessionCreated(HttpSessionEvent sessionEvent) {
+        Metrics.SESSIONS.inc();
+    }
+
+    /**
+     * Counts a destroyed session.
+     *
+     * @param sessionEvent event containing the destroyed session
+     */
+    @Override
+    public void sessionDestroyed(HttpSessionEvent sessionEvent) {
+        Metrics.SESSIONS.dec();
+    }
+}
@@ -0,0 +1,52 @@
+package altlombardisch.metrics;
+
+import org.apache.wicket.serialize.ISerializer;
+
+/**
+ * A serializer which adds the time spent serializing pages on a request thread to the server timing.
+ *
+ * @see ServerTiming.Metric#SERIALIZATION
+ */
+public class TimedSerializer implements ISerializer {
+    /**
+     * The serializer calls are delegated to.
+     */
+    private final ISerializer serializer;
+
+    /**
+     * Creates a timed serializer.
+     *
+     * @param serializer serializer calls are delegated to
+     */
+    public TimedSerializer(ISerializer serializer) {
+        this.serializer = serializer;
+    }
+
+    /**
+     * Serializes an object and measures the time taken.
+     *
+     * @param object serialized object
+     * @return Serialized data.
+     */
+    @Override
+    public byte[] serialize(Object object) {
+        long startTime = System.nanoTime();
+
+        try {
+            return serializer.serialize(object);
+        } finally {
+            ServerTiming.add(ServerTiming.Metric.SERIALIZATION, (System.nanoTime() - startTime) / 1e9);
+        }
+    }
+
+    /**
+     * Deserializes an object.
+     *
+     * @param data serialized data
+     * @return The deserialized object.
+     */
+    @Override
+    public Object deserialize(byte[] data) {
+        return serializer.deserialize(data);
+    }
+}
@@ -0,0 +1,49 @@
+package altlombardisch.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A flight recorder event for the validation of a form component value by a XML validator.
+ */
+@Category({"Altlombardisch", "XML"})
+@Description("Validation of a form component value against a XML schema or as XSL code.")
+@Label("XML Validation")
+@Name("altlombardisch.XmlValidation")
+public class XmlValidationEvent extends Event {
+    /**
+     * Type of the XML validator.
+     */
+    @Label("Validator Type")
+    private String validatorType;
+
+    /**
+     * Size of the validated document.
+     */
+    @DataAmount(DataAmount.BYTES)
+    @Description("Number of characters of the validated document.")
+    @Label("Document Size")
+    private long documentSize;
+
+    /**
+     * Sets the type of the XML validator.
+     *
+     * @param validatorType type of the XML validator
+     */
+    public void setValidatorType(String validatorType) {
+        this.validatorType = validatorType;
+    }
+
+    /**
+     * Sets the size of the validated document.
+     *
+     * @param documentSize number of characters of the validated document
+     */
+    public void setDocumentSize(long documentSize) {
+        this.documentSize = documentSize;
+    }
+}
@@ -0,0 +1,66 @@
+package altlombardisch.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A flight recorder event for an XSL transformation, including the compilation of the stylesheet.
+ */
+@Category({"Altlombardisch", "XML"})
+@Description("Compilation of an XSL stylesheet and transformation of a document.")
+@Label("XSLT Transform")
+@Name("altlombardisch.XsltTransform")
+public class XsltTransformEvent extends Event {
+    /**
+     * Name of the transforming component.
+     */
+    @Label("Source")
+    private String source;
+
+    /**
+     * Size of the stylesheet.
+     */
+    @DataAmount(DataAmount.BYTES)
+    @Description("Number of characters of the XSL stylesheet.")
+    @Label("Stylesheet Size")
+    private long stylesheetSize;
+
+    /**
+     * Size of the transformed document.
+     */
+    @DataAmount(DataAmount.BYTES)
+    @Description("Number of characters of the transformed document.")
+    @Label("Document Size")
+    private long documentSize;
+
+    /**
+     * Sets the name of the transforming component.
+     *
+     * @param source name of the transforming component
+     */
+    public void setSource(String source) {
+        this.source = source;
+    }
+
+    /**
+     * Sets the size of the stylesheet.
+     *
+     * @param stylesheetSize number of characters of the stylesheet
+     */
+    public void setStylesheetSize(long stylesheetSize) {
+        this.stylesheetSize = stylesheetSize;
+    }
+
+    /**
+     * Sets the size of the transformed document.
+     *
+     * @param documentSize number of characters of the transformed document
+     */
+    public void setDocumentSize(long documentSize) {
+        this.documentSize = documentSize;
+    }
+}
@@ -3,6 +3,7 @@ package altlombardisch.siglum;
 import altlombardisch.data.IDao;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Defines a siglum DAO by extending interface IDao.
@@ -17,7 +18,8 @@ public interface ISiglumDao extends IDao<Siglum> {
     Siglum findById(Integer id);
 
     /**
-     * Returns the matching siglum for a given name.
+     * Returns the matching siglum for a given name. Its lazy text is not loaded, so the siglum is meant for lookups,
+     * not for editing.
      * 
      * @param name
      *            the name of a siglum
@@ -26,10 +28,19 @@ public interface ISiglumDao extends IDao<Siglum> {
     Siglum findByName(String name);
 
     /**
-     * Returns a list of matching siglums for a given substring.
+     * Returns a list of matching siglums for a given substring. Their lazy texts are not loaded.
      *
      * @param substring substring of a siglum name
      * @return A list of siglums.
      */
     List<Siglum> findAll(String substring);
+
+    /**
+     * Passes matching siglums for a given substring to a consumer one by one without loading them into memory at
+     * once.
+     *
+     * @param substring substring of a siglum name
+     * @param consumer  consumer of siglums
+     */
+    void stream(String substring, Consumer<Siglum> consumer);
 }
@@ -1,6 +1,8 @@
 package altlombardisch.siglum;
 
+import altlombardisch.data.IdGenerator;
 import org.hibernate.annotations.*;
+import org.hibernate.annotations.Cache;
 
 import javax.persistence.*;
 import javax.persistence.Entity;
@@ -13,10 +15,11 @@ import java.util.UUID;
  * Represents a siglum of a bibliography.
  */
 @BatchSize(size = 20)
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, include = "non-lazy")
+@Cacheable
 @DynamicUpdate
 @Entity
 @OptimisticLocking(type = OptimisticLockType.VERSION)
-@SelectBeforeUpdate
 @Table(name = "siglum", indexes = { @Index(columnList = "uuid", unique = true),
         @Index(columnList = "name", unique = true) })
 public class Siglum implements Serializable {
@@ -29,7 +32,10 @@ public class Siglum implements Serializable {
      * ID associated with a siglum.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "siglum")
+    @TableGenerator(name = "siglum", table = IdGenerator.TABLE,
+            pkColumnName = IdGenerator.SEGMENT_COLUMN, valueColumnName = IdGenerator.VALUE_COLUMN,
+            pkColumnValue = "siglum", allocationSize = IdGenerator.ALLOCATION_SIZE)
     private Integer id;
 
     /**
@@ -58,9 +64,12 @@ public class Siglum implements Serializable {
     private String taggedName;
 
     /**
-     * Description text of a siglum.
+     * Description text of a siglum. It is loaded lazily, so that looking up siglums by name doesn’t read it, and is
+     * not stored in the second-level cache.
      */
+    @Basic(fetch = FetchType.LAZY)
     @Column(name = "text", columnDefinition = "TEXT", length = 65535)
+    @LazyGroup("text")
     private String text;
 
     /**
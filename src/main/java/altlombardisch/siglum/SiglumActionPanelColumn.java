@@ -8,14 +8,16 @@ import altlombardisch.user.User;
 import org.apache.wicket.ajax.AjaxRequestTarget;
 import org.apache.wicket.ajax.markup.html.AjaxLink;
 import org.apache.wicket.extensions.markup.html.repeater.data.grid.ICellPopulator;
+import org.apache.wicket.extensions.markup.html.repeater.data.table.DataTable;
 import org.apache.wicket.markup.html.panel.Panel;
 import org.apache.wicket.markup.repeater.Item;
 import org.apache.wicket.model.IModel;
+import org.apache.wicket.model.Model;
 
 /**
  * A custom column with actions for siglums and and a filter panel as filter.
  */
-public class SiglumActionPanelColumn extends FilterPanelColumn<Siglum> {
+public class SiglumActionPanelColumn extends FilterPanelColumn<SiglumRow> {
     /**
      * Determines if a deserialized file is compatible with this class.
      */
@@ -28,7 +30,7 @@ public class SiglumActionPanelColumn extends FilterPanelColumn<Siglum> {
      *            title of the column
      */
     public SiglumActionPanelColumn(IModel<String> displayModel) {
-        super(displayModel, Siglum.class);
+        super(displayModel, SiglumRow.class);
     }
 
     /**
@@ -52,8 +54,8 @@ public class SiglumActionPanelColumn extends FilterPanelColumn<Siglum> {
      *            model of the row
      */
     @Override
-    public void populateItem(Item<ICellPopulator<Siglum>> cellItem,
-            String componentId, IModel<Siglum> rowModel) {
+    public void populateItem(Item<ICellPopulator<SiglumRow>> cellItem,
+            String componentId, IModel<SiglumRow> rowModel) {
 
         cellItem.add(new ActionPanel(componentId, rowModel));
     }
@@ -73,9 +75,9 @@ public class SiglumActionPanelColumn extends FilterPanelColumn<Siglum> {
          * @param id
          *            ID of the panel
          * @param model
-         *            siglum model of a cell item
+         *            siglum row model of a cell item
          */
-        public ActionPanel(String id, final IModel<Siglum> model) {
+        public ActionPanel(String id, final IModel<SiglumRow> model) {
             super(id, model);
 
             User sessionUser = WebSession.get().getUser();
@@ -92,7 +94,11 @@ public class SiglumActionPanelColumn extends FilterPanelColumn<Siglum> {
 
                         @Override
                         public void onClick(AjaxRequestTarget target) {
-                            setResponsePage(new SiglumEditPage(model, getPage().getPageClass()));
+                            Siglum siglum = loadSiglum(target);
+
+                            if (siglum != null) {
+                                setResponsePage(new SiglumEditPage(Model.of(siglum), getPage().getPageClass()));
+                            }
                         }
                     });
                     add(new AjaxLink<Void>("deleteLink") {
@@ -106,8 +112,11 @@ public class SiglumActionPanelColumn extends FilterPanelColumn<Siglum> {
                         public void onClick(AjaxRequestTarget target) {
                             ModalMessagePanel siglumDeleteConfirmPanel = (ModalMessagePanel) getPage()
                                     .get("siglumDeleteConfirmPanel");
+                            Siglum siglum = loadSiglum(target);
 
-                            siglumDeleteConfirmPanel.show(target, model);
+                            if (siglum != null) {
+                                siglumDeleteConfirmPanel.show(target, Model.of(siglum));
+                            }
                         }
                     });
                 } else {
@@ -120,13 +129,37 @@ public class SiglumActionPanelColumn extends FilterPanelColumn<Siglum> {
 
                         @Override
                         public void onClick(AjaxRequestTarget target) {
-                            setResponsePage(new SiglumViewPage(model));
+                            Siglum siglum = loadSiglum(target);
+
+                            if (siglum != null) {
+                                setResponsePage(new SiglumViewPage(Model.of(siglum)));
+                            }
                         }
                     });
                 }
             }
         }
 
+        /**
+         * Loads the full siglum of the row model. If the siglum has been deleted in the meantime, an error message is
+         * shown and the data table is rendered again without its row.
+         *
+         * @param target target that produces an Ajax response
+         * @return The siglum of the row model, or null if it doesn’t exist anymore.
+         */
+        private Siglum loadSiglum(AjaxRequestTarget target) {
+            SiglumRow row = (SiglumRow) getDefaultModelObject();
+            Siglum siglum = new SiglumDao().findById(row.getId());
+
+            if (siglum == null) {
+                getPage().error(getString("SiglumActionPanelColumn.notFoundMessage"));
+                target.add(getPage().get("feedbackPanel"));
+                target.add(findParent(DataTable.class));
+            }
+
+            return siglum;
+        }
+
         /**
          * Returns markup variations based on user roles.
          * 
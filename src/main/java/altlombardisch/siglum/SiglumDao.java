@@ -2,6 +2,7 @@ package altlombardisch.siglum;
 
 import altlombardisch.data.EntityManagerListener;
 import altlombardisch.data.GenericDao;
+import altlombardisch.data.ReadOnlyMode;
 import org.hibernate.StaleObjectStateException;
 import org.hibernate.UnresolvableObjectException;
 
@@ -11,6 +12,7 @@ import javax.persistence.OptimisticLockException;
 import javax.persistence.TypedQuery;
 import java.util.List;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 /**
  * Represents a Data Access Object providing data operations for siglums.
@@ -37,20 +39,21 @@ public class SiglumDao extends GenericDao<Siglum> implements ISiglumDao {
      * @throws RuntimeException
      */
     public Siglum refresh(Siglum siglum) throws RuntimeException {
-        EntityManager entityManager = EntityManagerListener.createEntityManager();
+        EntityManager entityManager = EntityManagerListener.createEntityManager(getClass(), "refresh");
         EntityTransaction transaction = null;
 
         try {
             transaction = entityManager.getTransaction();
-            transaction.begin();
+            ReadOnlyMode.begin(entityManager, transaction);
 
             if (isTransient(siglum)) {
                 throw new IllegalArgumentException();
             }
 
             TypedQuery<Siglum> query = entityManager.createQuery("SELECT s FROM Siglum s " +
-                    "WHERE s.id = :id", Siglum.class);
+                    "FETCH ALL PROPERTIES WHERE s.id = :id", Siglum.class);
             Siglum refreshedSiglum = query.setParameter("id", siglum.getId()).getSingleResult();
+            initializeLazyAttributes(refreshedSiglum);
             transaction.commit();
             return refreshedSiglum;
         } catch (RuntimeException e) {
@@ -62,28 +65,52 @@ public class SiglumDao extends GenericDao<Siglum> implements ISiglumDao {
 
             throw e;
         } finally {
+            ReadOnlyMode.end(entityManager);
             entityManager.close();
         }
     }
 
     /**
-     * {@inheritDoc}
+     * Loads the lazy text of a siglum within a running transaction. A siglum taken from the second-level cache or
+     * already managed without its text lacks it.
      *
-     * @throws RuntimeException
+     * @param siglum a siglum
      */
-    public void persist(Siglum siglum) throws RuntimeException {
-        EntityManager entityManager = EntityManagerListener.createEntityManager();
-        EntityTransaction transaction = null;
+    @Override
+    protected void initializeLazyAttributes(Siglum siglum) {
+        siglum.getText();
+    }
 
+    /**
+     * Sets a UUID before a siglum is persisted.
+     *
+     * @param entityManager entity manager with an active transaction
+     * @param siglum        a siglum
+     */
+    @Override
+    protected void persistEntity(EntityManager entityManager, Siglum siglum) {
         if (siglum.getUuid() == null) {
             siglum.setUuid(UUID.randomUUID().toString());
         }
 
+        entityManager.persist(siglum);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws RuntimeException
+     */
+    public void persist(Siglum siglum) throws RuntimeException {
+        EntityManager entityManager = EntityManagerListener.createEntityManager(getClass(), "persist");
+        EntityTransaction transaction = null;
+
         try {
             transaction = entityManager.getTransaction();
             transaction.begin();
-            entityManager.persist(siglum);
+            persistEntity(entityManager, siglum);
             transaction.commit();
+            fireWrite();
         } catch (RuntimeException e) {
             e.printStackTrace();
 
@@ -109,15 +136,18 @@ public class SiglumDao extends GenericDao<Siglum> implements ISiglumDao {
      * @throws RuntimeException
      */
     public Siglum merge(Siglum siglum) throws RuntimeException {
-        EntityManager entityManager = EntityManagerListener.createEntityManager();
+        EntityManager entityManager = EntityManagerListener.createEntityManager(getClass(), "merge");
         EntityTransaction transaction = null;
 
         try {
             transaction = entityManager.getTransaction();
             transaction.begin();
-            Siglum mergedSiglum = entityManager.merge(siglum);
-            mergedSiglum = entityManager.merge(mergedSiglum);
+            Siglum mergedSiglum = mergeEntity(entityManager, siglum);
+            // flush before commit, so that a failed version check surfaces as OptimisticLockException
+            entityManager.flush();
+            initializeLazyAttributes(mergedSiglum);
             transaction.commit();
+            fireWrite();
             return mergedSiglum;
         } catch (RuntimeException e) {
             e.printStackTrace();
@@ -147,7 +177,7 @@ public class SiglumDao extends GenericDao<Siglum> implements ISiglumDao {
      */
     @Override
     public void remove(Siglum siglum) throws RuntimeException {
-        EntityManager entityManager = EntityManagerListener.createEntityManager();
+        EntityManager entityManager = EntityManagerListener.createEntityManager(getClass(), "remove");
         EntityTransaction transaction = null;
 
         try {
@@ -157,6 +187,7 @@ public class SiglumDao extends GenericDao<Siglum> implements ISiglumDao {
 
             entityManager.remove(mergedSiglum);
             transaction.commit();
+            fireWrite();
         } catch (RuntimeException e) {
             e.printStackTrace();
 
@@ -177,15 +208,16 @@ public class SiglumDao extends GenericDao<Siglum> implements ISiglumDao {
      */
     @Override
     public Siglum findById(Integer id) throws RuntimeException {
-        EntityManager entityManager = EntityManagerListener.createEntityManager();
+        EntityManager entityManager = EntityManagerListener.createEntityManager(getClass(), "findById");
         EntityTransaction transaction = null;
 
         try {
             transaction = entityManager.getTransaction();
-            transaction.begin();
+            ReadOnlyMode.begin(entityManager, transaction);
             TypedQuery<Siglum> query = entityManager.createQuery("SELECT s FROM Siglum s " +
-                    "WHERE s.id = :id", Siglum.class);
+                    "FETCH ALL PROPERTIES WHERE s.id = :id", Siglum.class);
             List<Siglum> siglumList = query.setParameter("id", id).getResultList();
+            siglumList.forEach(this::initializeLazyAttributes);
             transaction.commit();
 
             if (siglumList.isEmpty()) {
@@ -202,6 +234,7 @@ public class SiglumDao extends GenericDao<Siglum> implements ISiglumDao {
 
             throw e;
         } finally {
+            ReadOnlyMode.end(entityManager);
             entityManager.close();
         }
     }
@@ -213,14 +246,15 @@ public class SiglumDao extends GenericDao<Siglum> implements ISiglumDao {
      */
     @Override
     public Siglum findByName(String name) throws RuntimeException {
-        EntityManager entityManager = EntityManagerListener.createEntityManager();
+        EntityManager entityManager = EntityManagerListener.createEntityManager(getClass(), "findByName");
         EntityTransaction transaction = null;
 
         try {
             transaction = entityManager.getTransaction();
-            transaction.begin();
+            ReadOnlyMode.begin(entityManager, transaction);
             TypedQuery<Siglum> query = entityManager.createQuery("SELECT s FROM Siglum s " +
                     "WHERE s.name = :name", Siglum.class);
+            setCacheable(query, "query.Siglum");
             List<Siglum> siglumList = query.setParameter("name", name).getResultList();
             transaction.commit();
 
@@ -238,6 +272,7 @@ public class SiglumDao extends GenericDao<Siglum> implements ISiglumDao {
 
             throw e;
         } finally {
+            ReadOnlyMode.end(entityManager);
             entityManager.close();
         }
     }
@@ -249,12 +284,12 @@ public class SiglumDao extends GenericDao<Siglum> implements ISiglumDao {
      */
     @Override
     public List<Siglum> findAll(String substring) throws RuntimeException {
-        EntityManager entityManager = EntityManagerListener.createEntityManager();
+        EntityManager entityManager = EntityManagerListener.createEntityManager(getClass(), "findAll");
         EntityTransaction transaction = null;
 
         try {
             transaction = entityManager.getTransaction();
-            transaction.begin();
+            ReadOnlyMode.begin(entityManager, transaction);
             TypedQuery<Siglum> query = entityManager.createQuery("SELECT s FROM Siglum s " +
                     "WHERE s.name LIKE :substring", Siglum.class);
             List<Siglum> lemmaList = query.setParameter("substring", substring + "%").getResultList();
@@ -269,7 +304,19 @@ public class SiglumDao extends GenericDao<Siglum> implements ISiglumDao {
 
             throw e;
         } finally {
+            ReadOnlyMode.end(entityManager);
             entityManager.close();
         }
     }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws RuntimeException
+     */
+    @Override
+    public void stream(String substring, Consumer<Siglum> consumer) throws RuntimeException {
+        stream(entityManager -> entityManager.createQuery("SELECT s FROM Siglum s WHERE s.name LIKE :substring " +
+                "ORDER BY s.id", Siglum.class).setParameter("substring", substring + "%"), consumer);
+    }
 }
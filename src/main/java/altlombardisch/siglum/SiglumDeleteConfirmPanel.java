@@ -53,7 +53,7 @@ public class SiglumDeleteConfirmPanel extends ModalMessagePanel {
      *            data table that is refreshed
      */
     public SiglumDeleteConfirmPanel(String id,
-            GenericDataTable<Siglum> dataTable) {
+            GenericDataTable<SiglumRow> dataTable) {
         super(id, DialogType.YES_NO, dataTable);
     }
 
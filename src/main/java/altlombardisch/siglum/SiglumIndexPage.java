@@ -41,20 +41,22 @@ public class SiglumIndexPage extends IndexBasePage {
      * Creates a new siglum index page.
      */
     public SiglumIndexPage() {
-        GenericDataProvider<Siglum> dataProvider = new GenericDataProvider<Siglum>(Siglum.class,
-                new SortParam<String>("name", true));
-        FilterForm<Siglum> filterForm = new FilterForm<Siglum>("filterForm", dataProvider);
+        GenericDataProvider<SiglumRow> dataProvider = new GenericDataProvider<SiglumRow>(Siglum.class,
+                SiglumRow.class, new SortParam<String>("name", true), "id", "name", "type");
+        FilterForm<SiglumRow> filterForm = new FilterForm<SiglumRow>("filterForm", dataProvider);
         TextField<String> filterTextField = new TextField<String>("filterTextField", Model.of(""));
         WebMarkupContainer container = new WebMarkupContainer("container");
         Fragment fragment;
-        GenericDataTable<Siglum> dataTable;
+        GenericDataTable<SiglumRow> dataTable;
+
+        dataProvider.setApproximateSize(true);
 
         // check if the session is expired
         WebSession.get().checkSessionExpired();
 
         if (FILTER_FORM_ENABLED) {
             fragment = new Fragment("fragment", "withFilterForm", this);
-            dataTable = new GenericDataTable<Siglum>("siglumDataTable",
+            dataTable = new GenericDataTable<SiglumRow>("siglumDataTable",
                     getColumns(), dataProvider, filterForm);
 
             filterTextField.add(new FilterUpdatingBehavior(filterTextField,
@@ -63,7 +65,7 @@ public class SiglumIndexPage extends IndexBasePage {
             fragment.add(filterForm);
         } else {
             fragment = new Fragment("fragment", "withoutFilterForm", this);
-            dataTable = new GenericDataTable<Siglum>("siglumDataTable",
+            dataTable = new GenericDataTable<SiglumRow>("siglumDataTable",
                     getColumns(), dataProvider);
 
             filterTextField.add(new FilterUpdatingBehavior(filterTextField,
@@ -72,7 +74,7 @@ public class SiglumIndexPage extends IndexBasePage {
         }
 
         add(new SiglumDeleteConfirmPanel("siglumDeleteConfirmPanel", dataTable));
-        add(new FeedbackPanel());
+        add(new FeedbackPanel().setOutputMarkupId(true));
         add(filterTextField);
         add(new NewButton("new"));
         add(new BatchProcessingButton("batchProcessing"));
@@ -94,10 +96,10 @@ public class SiglumIndexPage extends IndexBasePage {
      * 
      * @return A list of columns.
      */
-    private List<IColumn<Siglum, String>> getColumns() {
-        List<IColumn<Siglum, String>> columns = new ArrayList<IColumn<Siglum, String>>();
+    private List<IColumn<SiglumRow, String>> getColumns() {
+        List<IColumn<SiglumRow, String>> columns = new ArrayList<IColumn<SiglumRow, String>>();
 
-        columns.add(new TextFilterColumn<Siglum, Siglum, String>(Model.of(getString("Siglum.name")),
+        columns.add(new TextFilterColumn<SiglumRow, SiglumRow, String>(Model.of(getString("Siglum.name")),
                 "name", "name"));
         columns.add(new SiglumTypeTextFilterColumn(Model.of(getString("Siglum.type")), "type", "type"));
         columns.add(new SiglumActionPanelColumn(Model.of("")));
@@ -122,12 +124,12 @@ public class SiglumIndexPage extends IndexBasePage {
         /**
          * Data table displaying filtered data.
          */
-        GenericDataTable<Siglum> dataTable;
+        GenericDataTable<SiglumRow> dataTable;
 
         /**
          * Data provider which delivers data for the table.
          */
-        GenericDataProvider<Siglum> dataProvider;
+        GenericDataProvider<SiglumRow> dataProvider;
 
         /**
          * Creates a new behavior.
@@ -140,8 +142,8 @@ public class SiglumIndexPage extends IndexBasePage {
          *            data provider which delivers data for the table.
          */
         public FilterUpdatingBehavior(TextField<String> textField,
-                GenericDataTable<Siglum> dataTable,
-                GenericDataProvider<Siglum> dataProvider) {
+                GenericDataTable<SiglumRow> dataTable,
+                GenericDataProvider<SiglumRow> dataProvider) {
             super("input");
             this.textField = textField;
             this.dataTable = dataTable;
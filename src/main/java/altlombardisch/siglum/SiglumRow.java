@@ -0,0 +1,104 @@
+package altlombardisch.siglum;
+
+import java.io.Serializable;
+
+/**
+ * A row of the siglum index table. Holds only the columns displayed by the table, so that siglum texts are not loaded
+ * for index pages.
+ *
+ * @see SiglumIndexPage
+ */
+public class SiglumRow implements Serializable {
+    /**
+     * Determines if a deserialized file is compatible with this class.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * ID of the siglum.
+     */
+    private Integer id;
+
+    /**
+     * Name of the siglum.
+     */
+    private String name;
+
+    /**
+     * Type of the siglum.
+     */
+    private SiglumType.Type type;
+
+    /**
+     * Creates an empty row used as filter state.
+     */
+    public SiglumRow() {
+    }
+
+    /**
+     * Creates a row. Used as constructor expression by criteria queries.
+     *
+     * @param id   ID of the siglum
+     * @param name name of the siglum
+     * @param type type of the siglum
+     */
+    public SiglumRow(Integer id, String name, SiglumType.Type type) {
+        this.id = id;
+        this.name = name;
+        this.type = type;
+    }
+
+    /**
+     * Returns the ID of the siglum.
+     *
+     * @return ID of the siglum.
+     */
+    public Integer getId() {
+        return id;
+    }
+
+    /**
+     * Sets the ID of the siglum.
+     *
+     * @param id ID of the siglum
+     */
+    public void setId(Integer id) {
+        this.id = id;
+    }
+
+    /**
+     * Returns the name of the siglum.
+     *
+     * @return Name of the siglum.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Sets the name of the siglum.
+     *
+     * @param name name of the siglum
+     */
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Returns the type of the siglum.
+     *
+     * @return Type of the siglum.
+     */
+    public SiglumType.Type getType() {
+        return type;
+    }
+
+    /**
+     * Sets the type of the siglum.
+     *
+     * @param type type of the siglum
+     */
+    public void setType(SiglumType.Type type) {
+        this.type = type;
+    }
+}
@@ -11,7 +11,7 @@ import org.apache.wicket.model.StringResourceModel;
 /**
  * A TextFilteredColumn adding to display values of context type enums properly.
  */
-class SiglumTypeTextFilterColumn extends TextFilterColumn<Siglum, Siglum, String> {
+class SiglumTypeTextFilterColumn extends TextFilterColumn<SiglumRow, SiglumRow, String> {
     /**
      * Creates a TextFilterColumn for context type enums.
      *
@@ -41,8 +41,8 @@ class SiglumTypeTextFilterColumn extends TextFilterColumn<Siglum, Siglum, String
      * @param rowModel    model of the row item being rendered
      */
     @Override
-    public void populateItem(Item<ICellPopulator<Siglum>> item, String componentId, IModel<Siglum> rowModel) {
-        Siglum context = rowModel.getObject();
+    public void populateItem(Item<ICellPopulator<SiglumRow>> item, String componentId, IModel<SiglumRow> rowModel) {
+        SiglumRow context = rowModel.getObject();
         SiglumType.Type type = context.getType();
 
         item.add(new SiglumTypePanel(componentId, new StringResourceModel("Type." + type.name())));
@@ -1,8 +1,13 @@
 package altlombardisch.siglum.text;
 
+import altlombardisch.metrics.Metrics;
+import altlombardisch.metrics.ServerTiming;
+import altlombardisch.metrics.XsltTransformEvent;
 import altlombardisch.siglum.Siglum;
+import altlombardisch.xml.XsltTemplatesCache;
 import altlombardisch.xml.document.XmlDocumentDefinition;
 import altlombardisch.xml.document.XmlDocumentDefinitionDao;
+import io.prometheus.client.Histogram;
 import org.apache.wicket.MarkupContainer;
 import org.apache.wicket.markup.IMarkupCacheKeyProvider;
 import org.apache.wicket.markup.IMarkupResourceStreamProvider;
@@ -64,7 +69,7 @@ public class SiglumTextPreviewPanel extends Panel implements IMarkupCacheKeyProv
     }
 
     /**
-     * Transforms siglum text with XSL code.
+     * Transforms siglum text with XSL code. The compiled stylesheet is taken from the templates cache.
      *
      * @param model siglum model
      * @return Transformed siglum text.
@@ -75,20 +80,37 @@ public class SiglumTextPreviewPanel extends Panel implements IMarkupCacheKeyProv
         String xslValue = siglumTextMarkupDocumentDefinition.getXsl();
 
         if (model.getObject().getText() != null && xslValue != null && xslValue.length() > 0) {
-            TransformerFactory factory = TransformerFactory.newInstance();
             String xmlValue = String.format("<%s>%s</%s>", siglumTextMarkupDocumentDefinition.getRootElement(),
                     model.getObject().getText(), siglumTextMarkupDocumentDefinition.getRootElement());
             Source xmlSource = new StreamSource(new StringReader(xmlValue));
-            Source xslSource = new StreamSource(new StringReader(xslValue));
             StringWriter writer = new StringWriter();
             Result result = new StreamResult(writer);
 
+            XsltTransformEvent event = new XsltTransformEvent();
+            event.begin();
+
             try {
-                Transformer transformer = factory.newTransformer(xslSource);
-                transformer.transform(xmlSource, result);
+                Transformer transformer = XsltTemplatesCache.newTransformer(siglumTextMarkupDocumentDefinition);
+                Histogram.Timer transformTimer = Metrics.XML_DURATION.labels("xslt_transform").startTimer();
+
+                try {
+                    transformer.transform(xmlSource, result);
+                } finally {
+                    ServerTiming.add(ServerTiming.Metric.XSLT, transformTimer.observeDuration());
+                }
+
                 return writer.getBuffer().toString();
             } catch (TransformerException e) {
                 e.printStackTrace();
+            } finally {
+                event.end();
+
+                if (event.shouldCommit()) {
+                    event.setSource(getClass().getSimpleName());
+                    event.setStylesheetSize(xslValue.length());
+                    event.setDocumentSize(xmlValue.length());
+                    event.commit();
+                }
             }
         }
 
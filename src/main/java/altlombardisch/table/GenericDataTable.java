@@ -78,13 +78,14 @@ public class GenericDataTable<T> extends DataTable<T, String> {
     }
 
     /**
-     * Builds a new data table with toolbars.
+     * Builds a new data table with toolbars. Next and previous pages are retrieved with keyset pagination.
      *
      * @param dataProvider provides data for a table
      * @param filterForm   form that filters data of a table
      */
     private void createTable(GenericDataProvider<T> dataProvider, FilterForm<T> filterForm) {
         setOutputMarkupId(true);
+        dataProvider.setKeysetPaging(true);
         add(AttributeModifier.append("class", "table table-hover table-striped"));
         addTopToolbar(new NavigationToolbar<>(this));
         addTopToolbar(new HeadersToolbar<>(this, dataProvider));
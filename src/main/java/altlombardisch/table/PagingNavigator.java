@@ -1,17 +1,21 @@
 package altlombardisch.table;
 
+import altlombardisch.data.GenericDataProvider;
 import org.apache.wicket.AttributeModifier;
 import org.apache.wicket.ajax.markup.html.navigation.paging.AjaxPagingNavigation;
 import org.apache.wicket.ajax.markup.html.navigation.paging.AjaxPagingNavigationIncrementLink;
 import org.apache.wicket.ajax.markup.html.navigation.paging.AjaxPagingNavigationLink;
 import org.apache.wicket.ajax.markup.html.navigation.paging.AjaxPagingNavigator;
+import org.apache.wicket.extensions.markup.html.repeater.data.table.DataTable;
 import org.apache.wicket.markup.ComponentTag;
+import org.apache.wicket.markup.html.basic.Label;
 import org.apache.wicket.markup.html.link.AbstractLink;
 import org.apache.wicket.markup.html.link.ExternalLink;
 import org.apache.wicket.markup.html.list.LoopItem;
 import org.apache.wicket.markup.html.navigation.paging.IPageable;
 import org.apache.wicket.markup.html.navigation.paging.IPagingLabelProvider;
 import org.apache.wicket.markup.html.navigation.paging.PagingNavigation;
+import org.apache.wicket.model.AbstractReadOnlyModel;
 import org.apache.wicket.model.IModel;
 
 import java.io.Serializable;
@@ -35,6 +39,52 @@ class PagingNavigator extends AjaxPagingNavigator {
         super(id, pageable);
     }
 
+    /**
+     * Called when a paging navigator is initialized. Adds a label which shows the estimated number of pages of
+     * tables counted with table statistics.
+     */
+    @Override
+    protected void onInitialize() {
+        super.onInitialize();
+        add(new Label("approximatePageCount", new AbstractReadOnlyModel<String>() {
+            /**
+             * Returns the label text.
+             *
+             * @return A label text.
+             */
+            @Override
+            public String getObject() {
+                return String.format(getString("PagingNavigator.approximatePageCount"), getPageable().getPageCount());
+            }
+        }) {
+            /**
+             * Shows the label only if the page count is estimated.
+             */
+            @Override
+            protected void onConfigure() {
+                super.onConfigure();
+                setVisible(isApproximate());
+            }
+        });
+    }
+
+    /**
+     * Determines if the number of pages is estimated.
+     *
+     * @return True if the paged table is counted with table statistics; false otherwise.
+     */
+    private boolean isApproximate() {
+        if (getPageable() instanceof DataTable) {
+            Object dataProvider = ((DataTable<?, ?>) getPageable()).getDataProvider();
+
+            if (dataProvider instanceof GenericDataProvider) {
+                return ((GenericDataProvider<?>) dataProvider).isApproximate();
+            }
+        }
+
+        return false;
+    }
+
     /**
      * Creates a paging navigation with numbered page links.
      *
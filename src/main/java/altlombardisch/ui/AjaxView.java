@@ -1,5 +1,6 @@
 package altlombardisch.ui;
 
+import altlombardisch.metrics.AjaxViewRefreshEvent;
 import org.apache.wicket.Component;
 import org.apache.wicket.ajax.AjaxEventBehavior;
 import org.apache.wicket.ajax.AjaxRequestTarget;
@@ -237,6 +238,8 @@ public abstract class AjaxView<T> extends RepeatingView {
      */
     @SuppressWarnings("unchecked")
     public void refresh(AjaxRequestTarget target) {
+        AjaxViewRefreshEvent event = new AjaxViewRefreshEvent();
+        event.begin();
         Iterator<Component> childIterator = iterator();
         Iterator<IModel<T>> modelIterator = getItemModels();
         Integer index = 0;
@@ -268,6 +271,13 @@ public abstract class AjaxView<T> extends RepeatingView {
         }
 
         refreshNoItemContainer(target);
+        event.end();
+
+        if (event.shouldCommit()) {
+            event.setView(getClass().getName());
+            event.setItemCount(index);
+            event.commit();
+        }
     }
 
     /**
@@ -0,0 +1,95 @@
+package altlombardisch.ui.xml;
+
+import org.w3c.dom.bootstrap.DOMImplementationRegistry;
+import org.w3c.dom.ls.DOMImplementationLS;
+import org.w3c.dom.ls.LSInput;
+import org.w3c.dom.ls.LSResourceResolver;
+
+import java.io.InputStream;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Resolves the bundled XML Schema meta-schema and its DTDs from the classpath, so that compiling schemas does not
+ * fetch them over the network. Other resources are resolved as usual.
+ */
+public class SchemaResourceResolver implements LSResourceResolver {
+    /**
+     * Classpath folder of the bundled resources, relative to XmlEditor.
+     */
+    private static final String FOLDER = "schema/";
+
+    /**
+     * File names of the bundled resources.
+     */
+    private static final Set<String> FILE_NAMES = Collections.unmodifiableSet(new HashSet<>(Arrays
+            .asList("XMLSchema.xsd", "XMLSchema.dtd", "datatypes.dtd")));
+
+    /**
+     * Factory of resolved inputs.
+     */
+    private final DOMImplementationLS domImplementation;
+
+    /**
+     * Creates a schema resource resolver.
+     */
+    public SchemaResourceResolver() {
+        try {
+            domImplementation = (DOMImplementationLS) DOMImplementationRegistry.newInstance()
+                    .getDOMImplementation("LS");
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Returns the classpath URL of the bundled meta-schema.
+     *
+     * @return URL of XMLSchema.xsd.
+     */
+    public static URL getMetaSchemaUrl() {
+        return XmlEditor.class.getResource(FOLDER + "XMLSchema.xsd");
+    }
+
+    /**
+     * Resolves a bundled resource by the file name of its system ID.
+     *
+     * @param type         type of the resource
+     * @param namespaceUri namespace of the resource, or null
+     * @param publicId     public ID of the resource, or null
+     * @param systemId     system ID of the resource, or null
+     * @param baseUri      base URI of the referencing resource, or null
+     * @return An input reading the bundled resource, or null if the resource is not bundled.
+     */
+    @Override
+    public LSInput resolveResource(String type, String namespaceUri, String publicId, String systemId,
+                                   String baseUri) {
+        if (systemId == null) {
+            return null;
+        }
+
+        String fileName = systemId.substring(systemId.lastIndexOf('/') + 1);
+
+        if (!FILE_NAMES.contains(fileName)) {
+            return null;
+        }
+
+        URL url = XmlEditor.class.getResource(FOLDER + fileName);
+        InputStream inputStream = XmlEditor.class.getResourceAsStream(FOLDER + fileName);
+
+        if (url == null || inputStream == null) {
+            return null;
+        }
+
+        LSInput input = domImplementation.createLSInput();
+
+        input.setByteStream(inputStream);
+        input.setPublicId(publicId);
+        input.setSystemId(url.toExternalForm());
+        input.setBaseURI(baseUri);
+        return input;
+    }
+}
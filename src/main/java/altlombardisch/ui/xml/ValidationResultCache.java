@@ -0,0 +1,409 @@
+package altlombardisch.ui.xml;
+
+import altlombardisch.metrics.Metrics;
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
+
+import javax.xml.bind.DatatypeConverter;
+import javax.xml.transform.ErrorListener;
+import javax.xml.transform.SourceLocator;
+import javax.xml.transform.TransformerException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A bounded cache of validation results. Results are keyed by hashes of the validator type, the schema and the
+ * validated content, and consist of the diagnostics reported during validation, so that unchanged content is not
+ * validated again on every form submit. Diagnostics do not depend on a component and are replayed to the error
+ * handler or error listener of the current validation.
+ *
+ * @see XmlValidator
+ */
+final class ValidationResultCache {
+    /**
+     * Name of the cache in metrics.
+     */
+    private static final String CACHE_NAME = "validation";
+
+    /**
+     * Maximum number of cached results.
+     */
+    private static final int MAXIMUM_SIZE = 1000;
+
+    /**
+     * Cached diagnostics in access order.
+     */
+    private static final Map<String, List<Diagnostic>> entries = new LinkedHashMap<String, List<Diagnostic>>(16,
+            0.75f, true) {
+        /**
+         * Determines if a deserialized file is compatible with this class.
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Removes the least recently used result if the cache is full.
+         *
+         * @param eldest least recently used entry
+         * @return True if the entry shall be removed; false otherwise.
+         */
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, List<Diagnostic>> eldest) {
+            return size() > MAXIMUM_SIZE;
+        }
+    };
+
+    /**
+     * Prevents instantiation.
+     */
+    private ValidationResultCache() {
+    }
+
+    /**
+     * Creates the key of a validation.
+     *
+     * @param validatorType validator type
+     * @param schema        everything the content is validated against, or an empty string
+     * @param content       validated content
+     * @return A cache key.
+     */
+    public static String createKey(XmlValidator.ValidatorType.Type validatorType, String schema, String content) {
+        return validatorType.name() + ":" + hash(schema) + ":" + hash(content);
+    }
+
+    /**
+     * Computes the SHA-256 hash of a string.
+     *
+     * @param value a string, or null
+     * @return A hexadecimal hash.
+     */
+    private static String hash(String value) {
+        try {
+            MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+            byte[] bytes = (value != null) ? value.getBytes(StandardCharsets.UTF_8) : new byte[0];
+
+            return DatatypeConverter.printHexBinary(messageDigest.digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Returns the diagnostics of a cached validation.
+     *
+     * @param key cache key
+     * @return A list of diagnostics, or null if no result is cached.
+     */
+    public static synchronized List<Diagnostic> get(String key) {
+        List<Diagnostic> diagnostics = entries.get(key);
+
+        Metrics.XML_CACHE.labels(CACHE_NAME, (diagnostics != null) ? "hit" : "miss").inc();
+        return diagnostics;
+    }
+
+    /**
+     * Stores the diagnostics of a completed validation.
+     *
+     * @param key         cache key
+     * @param diagnostics diagnostics reported during validation
+     */
+    public static synchronized void put(String key, List<Diagnostic> diagnostics) {
+        entries.put(key, Collections.unmodifiableList(new ArrayList<>(diagnostics)));
+    }
+
+    /**
+     * Replays diagnostics of a schema validation to an error handler.
+     *
+     * @param diagnostics  cached diagnostics
+     * @param errorHandler error handler of the current validation
+     */
+    public static void replay(List<Diagnostic> diagnostics, ErrorHandler errorHandler) {
+        try {
+            for (Diagnostic diagnostic : diagnostics) {
+                SAXParseException exception = new SAXParseException(diagnostic.message, null, null,
+                        diagnostic.lineNumber, diagnostic.columnNumber);
+
+                if (diagnostic.severity.equals(Severity.WARNING)) {
+                    errorHandler.warning(exception);
+                } else if (diagnostic.severity.equals(Severity.FATAL_ERROR)) {
+                    errorHandler.fatalError(exception);
+                } else {
+                    errorHandler.error(exception);
+                }
+            }
+        } catch (SAXException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Replays diagnostics of a stylesheet validation to an error listener.
+     *
+     * @param diagnostics   cached diagnostics
+     * @param errorListener error listener of the current validation
+     */
+    public static void replay(List<Diagnostic> diagnostics, ErrorListener errorListener) {
+        try {
+            for (Diagnostic diagnostic : diagnostics) {
+                TransformerException exception = new TransformerException(diagnostic.message,
+                        diagnostic.located ? diagnostic : null);
+
+                if (diagnostic.severity.equals(Severity.WARNING)) {
+                    errorListener.warning(exception);
+                } else if (diagnostic.severity.equals(Severity.FATAL_ERROR)) {
+                    errorListener.fatalError(exception);
+                } else {
+                    errorListener.error(exception);
+                }
+            }
+        } catch (TransformerException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Severities of diagnostics.
+     */
+    enum Severity {
+        WARNING, ERROR, FATAL_ERROR
+    }
+
+    /**
+     * A diagnostic reported during validation.
+     */
+    static final class Diagnostic implements SourceLocator {
+        /**
+         * Severity of the diagnostic.
+         */
+        private final Severity severity;
+
+        /**
+         * Message of the diagnostic.
+         */
+        private final String message;
+
+        /**
+         * Whether the diagnostic has a location.
+         */
+        private final boolean located;
+
+        /**
+         * Line number of the diagnostic.
+         */
+        private final int lineNumber;
+
+        /**
+         * Column number of the diagnostic.
+         */
+        private final int columnNumber;
+
+        /**
+         * Creates a diagnostic.
+         *
+         * @param severity     severity of the diagnostic
+         * @param message      message of the diagnostic
+         * @param located      whether the diagnostic has a location
+         * @param lineNumber   line number of the diagnostic
+         * @param columnNumber column number of the diagnostic
+         */
+        private Diagnostic(Severity severity, String message, boolean located, int lineNumber, int columnNumber) {
+            this.severity = severity;
+            this.message = message;
+            this.located = located;
+            this.lineNumber = lineNumber;
+            this.columnNumber = columnNumber;
+        }
+
+        /**
+         * Returns the public ID of the diagnostic, which is not recorded.
+         *
+         * @return Always null.
+         */
+        @Override
+        public String getPublicId() {
+            return null;
+        }
+
+        /**
+         * Returns the system ID of the diagnostic, which is not recorded.
+         *
+         * @return Always null.
+         */
+        @Override
+        public String getSystemId() {
+            return null;
+        }
+
+        /**
+         * Returns the line number of the diagnostic.
+         *
+         * @return A line number.
+         */
+        @Override
+        public int getLineNumber() {
+            return lineNumber;
+        }
+
+        /**
+         * Returns the column number of the diagnostic.
+         *
+         * @return A column number.
+         */
+        @Override
+        public int getColumnNumber() {
+            return columnNumber;
+        }
+    }
+
+    /**
+     * Records diagnostics reported to an error handler or error listener and passes them on.
+     */
+    static final class Recorder implements ErrorHandler, ErrorListener {
+        /**
+         * Error handler diagnostics are passed on to, or null.
+         */
+        private final ErrorHandler errorHandler;
+
+        /**
+         * Error listener diagnostics are passed on to, or null.
+         */
+        private final ErrorListener errorListener;
+
+        /**
+         * Recorded diagnostics.
+         */
+        private final List<Diagnostic> diagnostics = new ArrayList<>();
+
+        /**
+         * Creates a recorder passing diagnostics on to an error handler.
+         *
+         * @param errorHandler error handler of the current validation
+         */
+        Recorder(ErrorHandler errorHandler) {
+            this.errorHandler = errorHandler;
+            this.errorListener = null;
+        }
+
+        /**
+         * Creates a recorder passing diagnostics on to an error listener.
+         *
+         * @param errorListener error listener of the current validation
+         */
+        Recorder(ErrorListener errorListener) {
+            this.errorHandler = null;
+            this.errorListener = errorListener;
+        }
+
+        /**
+         * Returns the recorded diagnostics.
+         *
+         * @return A list of diagnostics.
+         */
+        List<Diagnostic> getDiagnostics() {
+            return diagnostics;
+        }
+
+        /**
+         * Records a diagnostic of a schema validation.
+         *
+         * @param severity  severity of the diagnostic
+         * @param exception the parse exception raised during validation
+         */
+        private void record(Severity severity, SAXParseException exception) {
+            diagnostics.add(new Diagnostic(severity, exception.getMessage(), true, exception.getLineNumber(),
+                    exception.getColumnNumber()));
+        }
+
+        /**
+         * Records a diagnostic of a stylesheet validation.
+         *
+         * @param severity  severity of the diagnostic
+         * @param exception the exception raised during validation
+         */
+        private void record(Severity severity, TransformerException exception) {
+            SourceLocator locator = exception.getLocator();
+
+            diagnostics.add(new Diagnostic(severity, exception.getMessage(), locator != null,
+                    (locator != null) ? locator.getLineNumber() : -1,
+                    (locator != null) ? locator.getColumnNumber() : -1));
+        }
+
+        /**
+         * Records and passes on a warning.
+         *
+         * @param exception the parse exception raised during validation
+         * @throws SAXException if the error handler throws it
+         */
+        @Override
+        public void warning(SAXParseException exception) throws SAXException {
+            record(Severity.WARNING, exception);
+            errorHandler.warning(exception);
+        }
+
+        /**
+         * Records and passes on an error.
+         *
+         * @param exception the parse exception raised during validation
+         * @throws SAXException if the error handler throws it
+         */
+        @Override
+        public void error(SAXParseException exception) throws SAXException {
+            record(Severity.ERROR, exception);
+            errorHandler.error(exception);
+        }
+
+        /**
+         * Records and passes on a fatal error.
+         *
+         * @param exception the parse exception raised during validation
+         * @throws SAXException if the error handler throws it
+         */
+        @Override
+        public void fatalError(SAXParseException exception) throws SAXException {
+            record(Severity.FATAL_ERROR, exception);
+            errorHandler.fatalError(exception);
+        }
+
+        /**
+         * Records and passes on a warning.
+         *
+         * @param exception the exception raised during validation
+         * @throws TransformerException if the error listener throws it
+         */
+        @Override
+        public void warning(TransformerException exception) throws TransformerException {
+            record(Severity.WARNING, exception);
+            errorListener.warning(exception);
+        }
+
+        /**
+         * Records and passes on an error.
+         *
+         * @param exception the exception raised during validation
+         * @throws TransformerException if the error listener throws it
+         */
+        @Override
+        public void error(TransformerException exception) throws TransformerException {
+            record(Severity.ERROR, exception);
+            errorListener.error(exception);
+        }
+
+        /**
+         * Records and passes on a fatal error.
+         *
+         * @param exception the exception raised during validation
+         * @throws TransformerException if the error listener throws it
+         */
+        @Override
+        public void fatalError(TransformerException exception) throws TransformerException {
+            record(Severity.FATAL_ERROR, exception);
+            errorListener.fatalError(exception);
+        }
+    }
+}
@@ -1,8 +1,8 @@
 package altlombardisch.ui.xml;
 
 import altlombardisch.CmsApplication;
+import altlombardisch.xml.TagDataCache;
 import altlombardisch.xml.TagDataProvider;
-import altlombardisch.xml.XmlHelper;
 import altlombardisch.xml.document.XmlDocumentDefinition;
 import org.apache.wicket.AttributeModifier;
 import org.apache.wicket.Component;
@@ -21,7 +21,6 @@ import org.apache.wicket.request.resource.PackageResourceReference;
 import org.apache.wicket.request.resource.ResourceReference;
 import org.apache.wicket.validation.validator.StringValidator;
 
-import javax.json.JsonObject;
 import java.math.BigInteger;
 import java.security.SecureRandom;
 import java.util.List;
@@ -287,8 +286,7 @@ public class XmlEditor extends FormComponentPanel<String> implements TagDataProv
      */
     @Override
     public void initializeTagData(Component component, XmlDocumentDefinition documentDefinition) {
-        JsonObject documentData = XmlHelper.getDocumentData(documentDefinition);
-        component.add(AttributeModifier.append("data-document", documentData.toString()));
+        component.add(AttributeModifier.append("data-document", TagDataCache.getDocumentData(documentDefinition)));
     }
 
     /**
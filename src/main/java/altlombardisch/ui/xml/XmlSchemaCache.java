@@ -0,0 +1,177 @@
+package altlombardisch.ui.xml;
+
+import altlombardisch.data.GenericDao;
+import altlombardisch.metrics.Metrics;
+import altlombardisch.metrics.ServerTiming;
+import altlombardisch.xml.document.XmlDocumentDefinition;
+import io.prometheus.client.Histogram;
+import org.xml.sax.SAXException;
+
+import javax.xml.XMLConstants;
+import javax.xml.transform.Source;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
+import java.io.StringReader;
+import java.net.URL;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A thread-safe cache of compiled XML schemas. Schemas of document definitions are keyed by the ID and version of a
+ * document definition and are dropped when document definitions are written through a DAO; unsaved changes of a
+ * schema never match a cached entry. The meta-schema for validating schemas is compiled once from the classpath.
+ * Compiled schemas are immutable and hand out a validator per use.
+ */
+public final class XmlSchemaCache {
+    /**
+     * Name of the cache in metrics.
+     */
+    private static final String CACHE_NAME = "xsd_schema";
+
+    /**
+     * Compiled schemas by document definition ID.
+     */
+    private static final ConcurrentMap<Integer, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Resolver of bundled resources, which is stateless and shared.
+     */
+    private static final SchemaResourceResolver resourceResolver = new SchemaResourceResolver();
+
+    /**
+     * Compiled meta-schema, or null if it is not compiled yet.
+     */
+    private static volatile Schema metaSchema;
+
+    static {
+        GenericDao.addWriteListener(entityClass -> {
+            if (XmlDocumentDefinition.class.equals(entityClass)) {
+                invalidate();
+            }
+        });
+    }
+
+    /**
+     * Prevents instantiation.
+     */
+    private XmlSchemaCache() {
+    }
+
+    /**
+     * Returns the compiled schema of a document definition. The schema is compiled only if no schema of the same
+     * version of the document definition is cached.
+     *
+     * @param definition a document definition
+     * @return A compiled schema.
+     * @throws SAXException if the schema cannot be compiled
+     */
+    public static Schema getSchema(XmlDocumentDefinition definition) throws SAXException {
+        Integer id = definition.getId();
+        Entry entry = (id != null) ? entries.get(id) : null;
+
+        if (entry != null && Objects.equals(entry.version, definition.getVersion())
+                && Objects.equals(entry.schemaString, definition.getSchema())) {
+            Metrics.XML_CACHE.labels(CACHE_NAME, "hit").inc();
+            return entry.schema;
+        }
+
+        Metrics.XML_CACHE.labels(CACHE_NAME, "miss").inc();
+        Schema schema = compile(new StreamSource(new StringReader(definition.getSchema())));
+
+        if (id != null) {
+            entries.put(id, new Entry(definition.getVersion(), definition.getSchema(), schema));
+        }
+
+        return schema;
+    }
+
+    /**
+     * Returns the compiled XML Schema meta-schema, which is read from the classpath.
+     *
+     * @return The compiled meta-schema.
+     * @throws SAXException if the meta-schema cannot be compiled
+     */
+    public static Schema getMetaSchema() throws SAXException {
+        Schema schema = metaSchema;
+
+        if (schema == null) {
+            URL url = SchemaResourceResolver.getMetaSchemaUrl();
+
+            schema = compile(new StreamSource(url.toExternalForm()));
+            metaSchema = schema;
+        }
+
+        return schema;
+    }
+
+    /**
+     * Compiles a schema and records the compile time. Bundled resources are resolved from the classpath.
+     *
+     * @param source schema source
+     * @return A compiled schema.
+     * @throws SAXException if the schema cannot be compiled
+     */
+    private static Schema compile(Source source) throws SAXException {
+        Histogram.Timer compileTimer = Metrics.XML_DURATION.labels("xsd_compile").startTimer();
+
+        try {
+            SchemaFactory schemaFactory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
+
+            schemaFactory.setResourceResolver(resourceResolver);
+            return schemaFactory.newSchema(source);
+        } finally {
+            ServerTiming.add(ServerTiming.Metric.XSD, compileTimer.observeDuration());
+        }
+    }
+
+    /**
+     * Returns the shared resolver of bundled resources.
+     *
+     * @return A resource resolver.
+     */
+    public static SchemaResourceResolver getResourceResolver() {
+        return resourceResolver;
+    }
+
+    /**
+     * Removes all compiled schemas of document definitions.
+     */
+    public static void invalidate() {
+        entries.clear();
+    }
+
+    /**
+     * Compiled schema of a document definition version.
+     */
+    private static final class Entry {
+        /**
+         * Version of the document definition.
+         */
+        private final Long version;
+
+        /**
+         * Source of the compiled schema.
+         */
+        private final String schemaString;
+
+        /**
+         * Compiled schema.
+         */
+        private final Schema schema;
+
+        /**
+         * Creates a cache entry.
+         *
+         * @param version      version of the document definition
+         * @param schemaString source of the compiled schema
+         * @param schema       compiled schema
+         */
+        private Entry(Long version, String schemaString, Schema schema) {
+            this.version = version;
+            this.schemaString = schemaString;
+            this.schema = schema;
+        }
+    }
+}
@@ -1,14 +1,12 @@
 package altlombardisch.ui.xml;
 
+import altlombardisch.xml.TagDataCache;
 import altlombardisch.xml.TagDataProvider;
-import altlombardisch.xml.XmlHelper;
 import altlombardisch.xml.document.XmlDocumentDefinition;
 import org.apache.wicket.AttributeModifier;
 import org.apache.wicket.Component;
 import org.apache.wicket.markup.html.form.TextField;
 
-import javax.json.JsonObject;
-
 /**
  * A text field able validate against XML document definitions.
  */
@@ -59,9 +57,7 @@ public class XmlTextField extends TextField<String> implements TagDataProvider {
             return;
         }
 
-        JsonObject documentData = XmlHelper.getDocumentData(documentDefinition);
-
         component.add(AttributeModifier.append("data-document",
-                documentData.toString()));
+                TagDataCache.getDocumentData(documentDefinition)));
     }
 }
@@ -1,27 +1,25 @@
 package altlombardisch.ui.xml;
 
+import altlombardisch.metrics.Metrics;
+import altlombardisch.metrics.ServerTiming;
+import altlombardisch.metrics.XmlValidationEvent;
+import altlombardisch.metrics.XsltTransformEvent;
 import altlombardisch.xml.document.XmlDocumentDefinition;
+import io.prometheus.client.Histogram;
 import org.apache.wicket.Component;
-import org.apache.wicket.request.Url;
-import org.apache.wicket.request.UrlRenderer;
-import org.apache.wicket.request.cycle.RequestCycle;
-import org.apache.wicket.request.mapper.parameter.PageParameters;
-import org.apache.wicket.request.resource.PackageResourceReference;
 import org.apache.wicket.validation.IValidatable;
 import org.apache.wicket.validation.IValidator;
 import org.xml.sax.SAXException;
 
-import javax.xml.XMLConstants;
 import javax.xml.transform.*;
 import javax.xml.transform.stream.StreamResult;
 import javax.xml.transform.stream.StreamSource;
 import javax.xml.validation.Schema;
-import javax.xml.validation.SchemaFactory;
 import javax.xml.validation.Validator;
 import java.io.IOException;
 import java.io.StringReader;
 import java.io.StringWriter;
-import java.net.URL;
+import java.util.List;
 
 /**
  * Validates a form component’s value against a XML schema.
@@ -126,59 +124,137 @@ public class XmlValidator implements IValidator<String> {
      */
     @Override
     public void validate(IValidatable<String> validatable) {
+        XmlValidationEvent event = new XmlValidationEvent();
+        event.begin();
+        validateValue(validatable);
+        event.end();
+
+        if (event.shouldCommit()) {
+            event.setValidatorType(validatorType.name());
+            event.setDocumentSize(validatable.getValue() != null ? validatable.getValue().length() : 0);
+            event.commit();
+        }
+    }
+
+    /**
+     * Returns everything besides the validator type that a value is validated against.
+     *
+     * @return The root element and schema of the document definition, or an empty string.
+     */
+    private String getSchemaString() {
+        if (validatorType.equals(ValidatorType.Type.DOCUMENT)) {
+            return documentDefinition.getRootElement() + "\n" + documentDefinition.getSchema();
+        }
+
+        return "";
+    }
+
+    /**
+     * Validates the value of a form component according to the validator type. Diagnostics of unchanged values are
+     * replayed from the validation result cache instead.
+     *
+     * @param validatable
+     *            IValidatable instance that is validated
+     */
+    private void validateValue(IValidatable<String> validatable) {
+        String key = ValidationResultCache.createKey(validatorType, getSchemaString(), validatable.getValue());
+        List<ValidationResultCache.Diagnostic> diagnostics = ValidationResultCache.get(key);
+
         if (validatorType.equals(ValidatorType.Type.DOCUMENT) || validatorType.equals(ValidatorType.Type.SCHEMA)) {
+            Integer lineOffset = validatorType.equals(ValidatorType.Type.DOCUMENT) ? -1 : 0;
+            XmlErrorHandler errorHandler = new XmlErrorHandler(component, validatable, lineOffset);
+
+            if (diagnostics != null) {
+                ValidationResultCache.replay(diagnostics, errorHandler);
+                return;
+            }
+
+            ValidationResultCache.Recorder recorder = new ValidationResultCache.Recorder(errorHandler);
+
             try {
                 String xmlValue = validatable.getValue();
                 Schema schema;
-                Integer lineOffset = 0;
 
                 if (validatorType.equals(ValidatorType.Type.DOCUMENT)) {
-                    String schemaString = documentDefinition.getSchema();
-                    Source schemaSource = new StreamSource(new StringReader(
-                            schemaString));
-                    schema = SchemaFactory.newInstance(
-                            XMLConstants.W3C_XML_SCHEMA_NS_URI).newSchema(
-                            schemaSource);
+                    schema = XmlSchemaCache.getSchema(documentDefinition);
                     xmlValue = "<" + documentDefinition.getRootElement() + ">\n"
                             + xmlValue + "\n</"
                             + documentDefinition.getRootElement() + ">";
-                    lineOffset = -1;
                 } else {
-                    PackageResourceReference schemaReference = new PackageResourceReference(
-                            XmlEditor.class, "schema/XMLSchema.xsd");
-                    CharSequence schemaCharSequence = RequestCycle.get().urlFor(
-                            schemaReference, new PageParameters());
-                    UrlRenderer urlRenderer = RequestCycle.get().getUrlRenderer();
-                    String urlString = urlRenderer.renderFullUrl(Url.parse(schemaCharSequence));
-                    URL schemaUrl = new URL(urlString);
-                    schema = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI).newSchema(schemaUrl);
+                    schema = XmlSchemaCache.getMetaSchema();
                 }
 
                 Validator validator = schema.newValidator();
 
                 validator.setFeature("http://apache.org/xml/features/validation/schema", true);
-                validator.setErrorHandler(new XmlErrorHandler(component, validatable, lineOffset));
-                validator.validate(new StreamSource(new StringReader(xmlValue)));
+                validator.setResourceResolver(XmlSchemaCache.getResourceResolver());
+                validator.setErrorHandler(recorder);
+                Histogram.Timer validationTimer = Metrics.XML_DURATION.labels("xsd_validation").startTimer();
+
+                try {
+                    validator.validate(new StreamSource(new StringReader(xmlValue)));
+                } finally {
+                    ServerTiming.add(ServerTiming.Metric.XSD, validationTimer.observeDuration());
+                }
             } catch (SAXException e) {
+                // fatal errors are reported to the error handler before they are thrown
                 e.printStackTrace();
             } catch (IOException e) {
                 e.printStackTrace();
+                return;
             }
+
+            ValidationResultCache.put(key, recorder.getDiagnostics());
         } else if (validatorType.equals(ValidatorType.Type.XSL)) {
+            XmlErrorListener errorListener = new XmlErrorListener(component, validatable);
+
+            if (diagnostics != null) {
+                ValidationResultCache.replay(diagnostics, errorListener);
+                return;
+            }
+
+            ValidationResultCache.Recorder recorder = new ValidationResultCache.Recorder(errorListener);
             String xmlValue = validatable.getValue();
             TransformerFactory factory = TransformerFactory.newInstance();
             Source xslSource = new StreamSource(new StringReader((xmlValue)));
             Source source = new StreamSource(new StringReader("<?xml version='1.0'?><root/>"));
             Result result = new StreamResult(new StringWriter());
 
-            factory.setErrorListener(new XmlErrorListener(component, validatable));
+            factory.setErrorListener(recorder);
+
+            XsltTransformEvent event = new XsltTransformEvent();
+            event.begin();
 
             try {
-                Transformer transformer = factory.newTransformer(xslSource);
-                transformer.transform(source, result);
+                Histogram.Timer compileTimer = Metrics.XML_DURATION.labels("xslt_compile").startTimer();
+                Transformer transformer;
+
+                try {
+                    transformer = factory.newTransformer(xslSource);
+                } finally {
+                    ServerTiming.add(ServerTiming.Metric.XSLT, compileTimer.observeDuration());
+                }
+
+                Histogram.Timer transformTimer = Metrics.XML_DURATION.labels("xslt_transform").startTimer();
+
+                try {
+                    transformer.transform(source, result);
+                } finally {
+                    ServerTiming.add(ServerTiming.Metric.XSLT, transformTimer.observeDuration());
+                }
             } catch (TransformerException e) {
                 e.printStackTrace();
             }
+
+            event.end();
+
+            if (event.shouldCommit()) {
+                event.setSource(getClass().getSimpleName());
+                event.setStylesheetSize(xmlValue != null ? xmlValue.length() : 0);
+                event.commit();
+            }
+
+            ValidationResultCache.put(key, recorder.getDiagnostics());
         }
     }
 }
@@ -2,6 +2,7 @@ package altlombardisch.user;
 
 import altlombardisch.auth.UserRoles;
 import altlombardisch.data.DatedEntity;
+import altlombardisch.data.IdGenerator;
 import org.hibernate.annotations.*;
 
 import javax.persistence.*;
@@ -19,7 +20,6 @@ import java.util.UUID;
 @DynamicUpdate
 @Entity
 @OptimisticLocking(type = OptimisticLockType.VERSION)
-@SelectBeforeUpdate
 @Table(name = "user", indexes = {@Index(columnList = "uuid", unique = true),
         @Index(columnList = "username", unique = true),
         @Index(columnList = "real_name", unique = true)})
@@ -28,7 +28,10 @@ public class User extends DatedEntity implements Principal, Serializable {
      * ID associated with a user.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "user")
+    @TableGenerator(name = "user", table = IdGenerator.TABLE,
+            pkColumnName = IdGenerator.SEGMENT_COLUMN, valueColumnName = IdGenerator.VALUE_COLUMN,
+            pkColumnValue = "user", allocationSize = IdGenerator.ALLOCATION_SIZE)
     private Integer id;
 
     /**
@@ -5,6 +5,7 @@ import altlombardisch.auth.UserRoles;
 import altlombardisch.auth.WebSession;
 import altlombardisch.data.EntityManagerListener;
 import altlombardisch.data.GenericDao;
+import altlombardisch.data.ReadOnlyMode;
 import org.apache.wicket.request.cycle.RequestCycle;
 import org.hibernate.StaleObjectStateException;
 import org.hibernate.UnresolvableObjectException;
@@ -63,24 +64,36 @@ public class UserDao extends GenericDao<User> implements IUserDao {
         return user.getId() == null;
     }
 
+    /**
+     * Sets a UUID before a user is persisted.
+     *
+     * @param entityManager entity manager with an active transaction
+     * @param user          a user
+     */
+    @Override
+    protected void persistEntity(EntityManager entityManager, User user) {
+        if (user.getUuid() == null) {
+            user.setUuid(UUID.randomUUID().toString());
+        }
+
+        entityManager.persist(user);
+    }
+
     /**
      * {@inheritDoc}
      *
      * @throws RuntimeException
      */
     public void persist(User user) throws RuntimeException {
-        EntityManager entityManager = EntityManagerListener.createEntityManager();
+        EntityManager entityManager = EntityManagerListener.createEntityManager(getClass(), "persist");
         EntityTransaction transaction = null;
 
-        if (user.getUuid() == null) {
-            user.setUuid(UUID.randomUUID().toString());
-        }
-
         try {
             transaction = entityManager.getTransaction();
             transaction.begin();
-            entityManager.persist(user);
+            persistEntity(entityManager, user);
             transaction.commit();
+            fireWrite();
         } catch (RuntimeException e) {
             e.printStackTrace();
 
@@ -115,12 +128,12 @@ public class UserDao extends GenericDao<User> implements IUserDao {
      * @throws RuntimeException
      */
     public User findByUsername(String username) throws RuntimeException {
-        EntityManager entityManager = EntityManagerListener.createEntityManager();
+        EntityManager entityManager = EntityManagerListener.createEntityManager(getClass(), "findByUsername");
         EntityTransaction transaction = null;
 
         try {
             transaction = entityManager.getTransaction();
-            transaction.begin();
+            ReadOnlyMode.begin(entityManager, transaction);
             TypedQuery<User> query = entityManager.createQuery("FROM User WHERE username = :username ORDER BY realName",
                     User.class);
             List<User> userList = query.setParameter("username", username).getResultList();
@@ -140,6 +153,7 @@ public class UserDao extends GenericDao<User> implements IUserDao {
 
             throw e;
         } finally {
+            ReadOnlyMode.end(entityManager);
             entityManager.close();
         }
     }
@@ -150,12 +164,12 @@ public class UserDao extends GenericDao<User> implements IUserDao {
      * @throws RuntimeException
      */
     public User findByRealName(String realName) throws RuntimeException {
-        EntityManager entityManager = EntityManagerListener.createEntityManager();
+        EntityManager entityManager = EntityManagerListener.createEntityManager(getClass(), "findByRealName");
         EntityTransaction transaction = null;
 
         try {
             transaction = entityManager.getTransaction();
-            transaction.begin();
+            ReadOnlyMode.begin(entityManager, transaction);
             TypedQuery<User> query = entityManager.createQuery("FROM User WHERE realName = :realName ORDER BY realName",
                     User.class);
             List<User> userList = query.setParameter("realName", realName).getResultList();
@@ -175,6 +189,7 @@ public class UserDao extends GenericDao<User> implements IUserDao {
 
             throw e;
         } finally {
+            ReadOnlyMode.end(entityManager);
             entityManager.close();
         }
     }
@@ -185,12 +200,12 @@ public class UserDao extends GenericDao<User> implements IUserDao {
      * @throws RuntimeException
      */
     public List<User> getAll() throws RuntimeException {
-        EntityManager entityManager = EntityManagerListener.createEntityManager();
+        EntityManager entityManager = EntityManagerListener.createEntityManager(getClass(), "getAll");
         EntityTransaction transaction = null;
 
         try {
             transaction = entityManager.getTransaction();
-            transaction.begin();
+            ReadOnlyMode.begin(entityManager, transaction);
             TypedQuery<User> query = entityManager.createQuery("FROM User ORDER BY realName", User.class);
             List<User> userList = query.getResultList();
             transaction.commit();
@@ -204,6 +219,7 @@ public class UserDao extends GenericDao<User> implements IUserDao {
 
             throw e;
         } finally {
+            ReadOnlyMode.end(entityManager);
             entityManager.close();
         }
     }
@@ -0,0 +1,123 @@
+package altlombardisch.xml;
+
+import altlombardisch.data.GenericDao;
+import altlombardisch.metrics.Metrics;
+import altlombardisch.xml.attribute.XmlAttributeDefinition;
+import altlombardisch.xml.document.XmlDocumentDefinition;
+import altlombardisch.xml.tag.XmlTagDefinition;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A thread-safe cache of serialized document data of XML editors. Document data is built from the tag tree of a
+ * document definition, which is loaded in one query, and is keyed by the ID and version of a document definition and
+ * by a version of all tag trees. The tag tree version is incremented and entries are dropped when document, tag or
+ * attribute definitions are written through a DAO, so document data built during a write never matches.
+ *
+ * @see XmlHelper#getDocumentData(XmlDocumentDefinition)
+ */
+public final class TagDataCache {
+    /**
+     * Name of the cache in metrics.
+     */
+    private static final String CACHE_NAME = "tag_data";
+
+    /**
+     * Serialized document data by document definition ID.
+     */
+    private static final ConcurrentMap<Integer, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Version of all tag trees.
+     */
+    private static final AtomicLong tagTreeVersion = new AtomicLong();
+
+    static {
+        GenericDao.addWriteListener(entityClass -> {
+            if (XmlDocumentDefinition.class.equals(entityClass) || XmlTagDefinition.class.equals(entityClass)
+                    || XmlAttributeDefinition.class.equals(entityClass)) {
+                invalidate();
+            }
+        });
+    }
+
+    /**
+     * Prevents instantiation.
+     */
+    private TagDataCache() {
+    }
+
+    /**
+     * Returns the document data of a document definition as JSON string. Document data is built only if no document
+     * data of the same version of the document definition and its tag tree is cached.
+     *
+     * @param documentDefinition document definition used as source for document data
+     * @return A JSON string with document data.
+     */
+    public static String getDocumentData(XmlDocumentDefinition documentDefinition) {
+        Integer id = documentDefinition.getId();
+
+        if (id == null) {
+            return XmlHelper.getDocumentData(documentDefinition).toString();
+        }
+
+        long currentTagTreeVersion = tagTreeVersion.get();
+        Entry entry = entries.get(id);
+
+        if (entry != null && entry.tagTreeVersion == currentTagTreeVersion
+                && Objects.equals(entry.version, documentDefinition.getVersion())) {
+            Metrics.XML_CACHE.labels(CACHE_NAME, "hit").inc();
+            return entry.documentData;
+        }
+
+        Metrics.XML_CACHE.labels(CACHE_NAME, "miss").inc();
+        String documentData = XmlHelper.getDocumentData(documentDefinition).toString();
+
+        entries.put(id, new Entry(documentDefinition.getVersion(), currentTagTreeVersion, documentData));
+        return documentData;
+    }
+
+    /**
+     * Removes all document data.
+     */
+    public static void invalidate() {
+        tagTreeVersion.incrementAndGet();
+        entries.clear();
+    }
+
+    /**
+     * Serialized document data of a document definition version.
+     */
+    private static final class Entry {
+        /**
+         * Version of the document definition.
+         */
+        private final Long version;
+
+        /**
+         * Version of all tag trees when the document data was built.
+         */
+        private final long tagTreeVersion;
+
+        /**
+         * Serialized document data.
+         */
+        private final String documentData;
+
+        /**
+         * Creates a cache entry.
+         *
+         * @param version        version of the document definition
+         * @param tagTreeVersion version of all tag trees when the document data was built
+         * @param documentData   serialized document data
+         */
+        private Entry(Long version, long tagTreeVersion, String documentData) {
+            this.version = version;
+            this.tagTreeVersion = tagTreeVersion;
+            this.documentData = documentData;
+        }
+    }
+}
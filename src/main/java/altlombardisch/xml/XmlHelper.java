@@ -1,21 +1,24 @@
 package altlombardisch.xml;
 
+import altlombardisch.data.FetchPlan;
+import altlombardisch.metrics.DocumentDataEvent;
 import altlombardisch.xml.attribute.XmlAttributeDefinition;
-import altlombardisch.xml.attribute.XmlAttributeDefinitionDao;
 import altlombardisch.xml.document.XmlDocumentDefinition;
+import altlombardisch.xml.document.XmlDocumentDefinitionDao;
 import altlombardisch.xml.tag.XmlTagDefinition;
-import altlombardisch.xml.tag.XmlTagDefinitionDao;
-import org.w3c.dom.Document;
+import org.apache.wicket.MetaDataKey;
+import org.apache.wicket.request.cycle.RequestCycle;
 import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
 
 import javax.json.*;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
 import java.io.IOException;
 import java.io.StringReader;
-import java.util.List;
+import java.util.HashMap;
 
 /**
  * A helper class with methods and constants for XML-related tasks.
@@ -30,32 +33,50 @@ public class XmlHelper {
             + "</xs:schema>";
 
     /**
-     * Returns the text content of a XML fragment string.
+     * Key of the text contents extracted during a request cycle.
+     */
+    private static final MetaDataKey<HashMap<String, String>> TEXT_CONTENTS =
+            new MetaDataKey<HashMap<String, String>>() {
+        /**
+         * Determines if a deserialized file is compatible with this class.
+         */
+        private static final long serialVersionUID = 1L;
+    };
+
+    /**
+     * Text content extractors confined to the threads using them.
+     */
+    private static final ThreadLocal<TextContentExtractor> textContentExtractors =
+            ThreadLocal.withInitial(TextContentExtractor::new);
+
+    /**
+     * Returns the text content of a XML fragment string. The fragment is parsed by a streaming parser of the current
+     * thread. Within a request cycle, the text content of repeated fragments is only extracted once.
      * 
      * @param xmlText
      *            a XML fragment string
      * @return A text content representation of a XML fragment string or null.
      */
     public static String getTextContent(String xmlText) {
-        DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory
-                .newInstance();
-        Document document = null;
-
-        try {
-            DocumentBuilder documentBuilder = documentBuilderFactory
-                    .newDocumentBuilder();
-            document = documentBuilder.parse(new InputSource(new StringReader(
-                    "<document>" + xmlText + "</document>")));
-
-        } catch (IOException | ParserConfigurationException | SAXException e) {
-            e.printStackTrace();
+        RequestCycle requestCycle = RequestCycle.get();
+
+        if (requestCycle == null) {
+            return textContentExtractors.get().extract(xmlText);
         }
 
-        if (document instanceof Document) {
-            return document.getDocumentElement().getTextContent();
-        } else {
-            return null;
+        HashMap<String, String> textContents = requestCycle.getMetaData(TEXT_CONTENTS);
+
+        if (textContents == null) {
+            textContents = new HashMap<>();
+            requestCycle.setMetaData(TEXT_CONTENTS, textContents);
+        } else if (textContents.containsKey(xmlText)) {
+            return textContents.get(xmlText);
         }
+
+        String textContent = textContentExtractors.get().extract(xmlText);
+
+        textContents.put(xmlText, textContent);
+        return textContent;
     }
 
     /**
@@ -67,15 +88,27 @@ public class XmlHelper {
      */
     public static JsonObject getDocumentData(
             XmlDocumentDefinition documentDefinition) {
+        DocumentDataEvent event = new DocumentDataEvent();
+        event.begin();
+        JsonArray tagData = getTagData(documentDefinition);
         JsonObject jsonObject = Json.createObjectBuilder()
                 .add("identifier", documentDefinition.getIdentifier())
-                .add("tags", getTagData(documentDefinition)).build();
+                .add("tags", tagData).build();
+
+        event.end();
+
+        if (event.shouldCommit()) {
+            event.setIdentifier(documentDefinition.getIdentifier());
+            event.setTagCount(tagData.size());
+            event.commit();
+        }
 
         return jsonObject;
     }
 
     /**
-     * Returns a JsonArray with tag data of a document definition.
+     * Returns a JsonArray with tag data of a document definition. Tag and attribute definitions are loaded with the
+     * document definition in one query.
      * 
      * @param documentDefinition
      *            document definition used as source for tag data
@@ -83,10 +116,19 @@ public class XmlHelper {
      */
     private static JsonArray getTagData(XmlDocumentDefinition documentDefinition) {
         JsonArrayBuilder tagArrayBuilder = Json.createArrayBuilder();
-        List<XmlTagDefinition> tagDefinitions = new XmlTagDefinitionDao()
-                .findAll(documentDefinition);
 
-        for (XmlTagDefinition tagDefinition : tagDefinitions) {
+        if (documentDefinition.getId() == null) {
+            return tagArrayBuilder.build();
+        }
+
+        XmlDocumentDefinition tagTree = new XmlDocumentDefinitionDao().find(documentDefinition.getId(),
+                FetchPlan.named(XmlDocumentDefinition.TAG_TREE_GRAPH));
+
+        if (tagTree == null) {
+            return tagArrayBuilder.build();
+        }
+
+        for (XmlTagDefinition tagDefinition : tagTree.getTagDefinitions()) {
             JsonObjectBuilder tagObjectBuilder = Json.createObjectBuilder();
             JsonArray attributeData = getAttributeData(tagDefinition);
 
@@ -103,15 +145,13 @@ public class XmlHelper {
      * Returns a JsonArray with attribute data of a tag definition.
      * 
      * @param tagDefinition
-     *            tag definition used as source for attribute data
+     *            tag definition with fetched attribute definitions
      * @return A JsonArray with attribute data.
      */
     private static JsonArray getAttributeData(XmlTagDefinition tagDefinition) {
         JsonArrayBuilder attributeArrayBuilder = Json.createArrayBuilder();
-        List<XmlAttributeDefinition> attributeDefinitions = new XmlAttributeDefinitionDao()
-                .findAll(tagDefinition);
 
-        for (XmlAttributeDefinition attributeDefinition : attributeDefinitions) {
+        for (XmlAttributeDefinition attributeDefinition : tagDefinition.getAttributeDefinitions()) {
             JsonObjectBuilder attributeObjectBuilder = Json
                     .createObjectBuilder();
 
@@ -123,4 +163,75 @@ public class XmlHelper {
 
         return attributeArrayBuilder.build();
     }
+
+    /**
+     * Extracts the text content of XML fragments with a reusable SAX parser. An extractor must not be shared
+     * between threads.
+     */
+    private static class TextContentExtractor extends DefaultHandler {
+        /**
+         * The reused parser, or null if no parser could be created.
+         */
+        private final SAXParser parser;
+
+        /**
+         * Text content of the current fragment.
+         */
+        private final StringBuilder textContent = new StringBuilder();
+
+        /**
+         * Creates a text content extractor.
+         */
+        TextContentExtractor() {
+            SAXParser saxParser = null;
+
+            try {
+                saxParser = SAXParserFactory.newInstance().newSAXParser();
+            } catch (ParserConfigurationException | SAXException e) {
+                e.printStackTrace();
+            }
+
+            parser = saxParser;
+        }
+
+        /**
+         * Returns the text content of a XML fragment string.
+         *
+         * @param xmlText
+         *            a XML fragment string
+         * @return A text content representation of a XML fragment string or null.
+         */
+        String extract(String xmlText) {
+            if (parser == null) {
+                return null;
+            }
+
+            textContent.setLength(0);
+
+            try {
+                parser.parse(new InputSource(new StringReader("<document>" + xmlText + "</document>")), this);
+                return textContent.toString();
+            } catch (IOException | SAXException e) {
+                e.printStackTrace();
+                return null;
+            } finally {
+                parser.reset();
+            }
+        }
+
+        /**
+         * Appends character data to the text content.
+         *
+         * @param characters
+         *            characters from the XML fragment
+         * @param start
+         *            start position in the array
+         * @param length
+         *            number of characters to read from the array
+         */
+        @Override
+        public void characters(char[] characters, int start, int length) {
+            textContent.append(characters, start, length);
+        }
+    }
 }
@@ -0,0 +1,135 @@
+package altlombardisch.xml;
+
+import altlombardisch.data.GenericDao;
+import altlombardisch.metrics.Metrics;
+import altlombardisch.metrics.ServerTiming;
+import altlombardisch.xml.document.XmlDocumentDefinition;
+import io.prometheus.client.Histogram;
+
+import javax.xml.transform.Templates;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.stream.StreamSource;
+import java.io.StringReader;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A thread-safe cache of compiled stylesheets of XML document definitions. Compiled templates are keyed by the ID
+ * and version of a document definition, so a stylesheet is compiled once per saved version, and are dropped when
+ * document definitions are written through a DAO. Unsaved changes of a stylesheet never match a cached entry.
+ * Templates are immutable and hand out a cheap transformer per use.
+ */
+public final class XsltTemplatesCache {
+    /**
+     * Name of the cache in metrics.
+     */
+    private static final String CACHE_NAME = "xslt_templates";
+
+    /**
+     * Compiled templates by document definition ID.
+     */
+    private static final ConcurrentMap<Integer, Entry> entries = new ConcurrentHashMap<>();
+
+    static {
+        GenericDao.addWriteListener(entityClass -> {
+            if (XmlDocumentDefinition.class.equals(entityClass)) {
+                invalidate();
+            }
+        });
+    }
+
+    /**
+     * Prevents instantiation.
+     */
+    private XsltTemplatesCache() {
+    }
+
+    /**
+     * Creates a transformer for the stylesheet of a document definition. The stylesheet is compiled only if no
+     * templates of the same version of the document definition are cached.
+     *
+     * @param definition a document definition with a stylesheet
+     * @return A new transformer, which must not be shared between threads.
+     * @throws TransformerConfigurationException if the stylesheet cannot be compiled
+     */
+    public static Transformer newTransformer(XmlDocumentDefinition definition)
+            throws TransformerConfigurationException {
+        Integer id = definition.getId();
+        Entry entry = (id != null) ? entries.get(id) : null;
+
+        if (entry != null && Objects.equals(entry.version, definition.getVersion())
+                && Objects.equals(entry.xsl, definition.getXsl())) {
+            Metrics.XML_CACHE.labels(CACHE_NAME, "hit").inc();
+            return entry.templates.newTransformer();
+        }
+
+        Metrics.XML_CACHE.labels(CACHE_NAME, "miss").inc();
+        Templates templates = compile(definition.getXsl());
+
+        if (id != null) {
+            entries.put(id, new Entry(definition.getVersion(), definition.getXsl(), templates));
+        }
+
+        return templates.newTransformer();
+    }
+
+    /**
+     * Compiles a stylesheet and records the compile time.
+     *
+     * @param xsl stylesheet
+     * @return Compiled templates.
+     * @throws TransformerConfigurationException if the stylesheet cannot be compiled
+     */
+    private static Templates compile(String xsl) throws TransformerConfigurationException {
+        Histogram.Timer compileTimer = Metrics.XML_DURATION.labels("xslt_compile").startTimer();
+
+        try {
+            return TransformerFactory.newInstance().newTemplates(new StreamSource(new StringReader(xsl)));
+        } finally {
+            ServerTiming.add(ServerTiming.Metric.XSLT, compileTimer.observeDuration());
+        }
+    }
+
+    /**
+     * Removes all compiled templates.
+     */
+    public static void invalidate() {
+        entries.clear();
+    }
+
+    /**
+     * Compiled templates of a document definition version.
+     */
+    private static final class Entry {
+        /**
+         * Version of the document definition.
+         */
+        private final Long version;
+
+        /**
+         * Compiled stylesheet.
+         */
+        private final String xsl;
+
+        /**
+         * Compiled templates.
+         */
+        private final Templates templates;
+
+        /**
+         * Creates a cache entry.
+         *
+         * @param version   version of the document definition
+         * @param xsl       compiled stylesheet
+         * @param templates compiled templates
+         */
+        private Entry(Long version, String xsl, Templates templates) {
+            this.version = version;
+            this.xsl = xsl;
+            this.templates = templates;
+        }
+    }
+}
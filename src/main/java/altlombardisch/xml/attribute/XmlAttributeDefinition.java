@@ -1,7 +1,9 @@
 package altlombardisch.xml.attribute;
 
+import altlombardisch.data.IdGenerator;
 import altlombardisch.xml.tag.XmlTagDefinition;
 import org.hibernate.annotations.*;
+import org.hibernate.annotations.Cache;
 
 import javax.persistence.*;
 import javax.persistence.Entity;
@@ -14,10 +16,11 @@ import java.util.UUID;
  * Represents the definition of a XML attribute.
  */
 @BatchSize(size = 20)
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@Cacheable
 @DynamicUpdate
 @Entity
 @OptimisticLocking(type = OptimisticLockType.VERSION)
-@SelectBeforeUpdate
 @Table(name = "xml_attribute_definition", indexes = {
         @Index(columnList = "uuid", unique = true),
         @Index(columnList = "tag_definition_id, name", unique = true) })
@@ -31,7 +34,10 @@ public class XmlAttributeDefinition implements Serializable {
      * ID associated with an attribute definition.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "xml_attribute_definition")
+    @TableGenerator(name = "xml_attribute_definition", table = IdGenerator.TABLE,
+            pkColumnName = IdGenerator.SEGMENT_COLUMN, valueColumnName = IdGenerator.VALUE_COLUMN,
+            pkColumnValue = "xml_attribute_definition", allocationSize = IdGenerator.ALLOCATION_SIZE)
     private Integer id;
 
     /**
@@ -2,6 +2,7 @@ package altlombardisch.xml.attribute;
 
 import altlombardisch.data.EntityManagerListener;
 import altlombardisch.data.GenericDao;
+import altlombardisch.data.ReadOnlyMode;
 import altlombardisch.xml.tag.XmlTagDefinition;
 import org.hibernate.StaleObjectStateException;
 import org.hibernate.UnresolvableObjectException;
@@ -33,24 +34,36 @@ public class XmlAttributeDefinitionDao extends GenericDao<XmlAttributeDefinition
         return definition.getId() == null;
     }
 
+    /**
+     * Sets a UUID before an attribute definition is persisted.
+     *
+     * @param entityManager entity manager with an active transaction
+     * @param definition    an attribute definition
+     */
+    @Override
+    protected void persistEntity(EntityManager entityManager, XmlAttributeDefinition definition) {
+        if (definition.getUuid() == null) {
+            definition.setUuid(UUID.randomUUID().toString());
+        }
+
+        entityManager.persist(definition);
+    }
+
     /**
      * {@inheritDoc}
      *
      * @throws RuntimeException
      */
     public void persist(XmlAttributeDefinition definition) throws RuntimeException {
-        EntityManager entityManager = EntityManagerListener.createEntityManager();
+        EntityManager entityManager = EntityManagerListener.createEntityManager(getClass(), "persist");
         EntityTransaction transaction = null;
 
-        if (definition.getUuid() == null) {
-            definition.setUuid(UUID.randomUUID().toString());
-        }
-
         try {
             transaction = entityManager.getTransaction();
             transaction.begin();
-            entityManager.persist(definition);
+            persistEntity(entityManager, definition);
             transaction.commit();
+            fireWrite();
         } catch (RuntimeException e) {
             e.printStackTrace();
 
@@ -76,14 +89,17 @@ public class XmlAttributeDefinitionDao extends GenericDao<XmlAttributeDefinition
      * @throws RuntimeException
      */
     public XmlAttributeDefinition merge(XmlAttributeDefinition definition) throws RuntimeException {
-        EntityManager entityManager = EntityManagerListener.createEntityManager();
+        EntityManager entityManager = EntityManagerListener.createEntityManager(getClass(), "merge");
         EntityTransaction transaction = null;
 
         try {
             transaction = entityManager.getTransaction();
             transaction.begin();
-            XmlAttributeDefinition mergedDefinition = entityManager.merge(definition);
+            XmlAttributeDefinition mergedDefinition = mergeEntity(entityManager, definition);
+            // flush before commit, so that a failed version check surfaces as OptimisticLockException
+            entityManager.flush();
             transaction.commit();
+            fireWrite();
             return mergedDefinition;
         } catch (RuntimeException e) {
             e.printStackTrace();
@@ -106,6 +122,20 @@ public class XmlAttributeDefinitionDao extends GenericDao<XmlAttributeDefinition
         }
     }
 
+    /**
+     * Removes an attribute definition from its parent tag definition before it is removed.
+     *
+     * @param entityManager entity manager with an active transaction
+     * @param definition    an attribute definition
+     */
+    @Override
+    protected void removeEntity(EntityManager entityManager, XmlAttributeDefinition definition) {
+        XmlAttributeDefinition mergedDefinition = entityManager.merge(definition);
+
+        mergedDefinition.getTagDefinition().getAttributeDefinitions().remove(mergedDefinition);
+        entityManager.remove(mergedDefinition);
+    }
+
     /**
      * {@inheritDoc}
      *
@@ -113,17 +143,15 @@ public class XmlAttributeDefinitionDao extends GenericDao<XmlAttributeDefinition
      */
     @Override
     public void remove(XmlAttributeDefinition definition) throws RuntimeException {
-        EntityManager entityManager = EntityManagerListener.createEntityManager();
+        EntityManager entityManager = EntityManagerListener.createEntityManager(getClass(), "remove");
         EntityTransaction transaction = null;
 
         try {
             transaction = entityManager.getTransaction();
             transaction.begin();
-            XmlAttributeDefinition mergedDefinition = entityManager.merge(definition);
-
-            mergedDefinition.getTagDefinition().getAttributeDefinitions().remove(mergedDefinition);
-            entityManager.remove(mergedDefinition);
+            removeEntity(entityManager, definition);
             transaction.commit();
+            fireWrite();
         } catch (RuntimeException e) {
             e.printStackTrace();
 
@@ -144,12 +172,12 @@ public class XmlAttributeDefinitionDao extends GenericDao<XmlAttributeDefinition
      */
     @Override
     public XmlAttributeDefinition findById(Integer id) throws RuntimeException {
-        EntityManager entityManager = EntityManagerListener.createEntityManager();
+        EntityManager entityManager = EntityManagerListener.createEntityManager(getClass(), "findById");
         EntityTransaction transaction = null;
 
         try {
             transaction = entityManager.getTransaction();
-            transaction.begin();
+            ReadOnlyMode.begin(entityManager, transaction);
             TypedQuery<XmlAttributeDefinition> query = entityManager.createQuery("SELECT x " +
                     "FROM XmlAttributeDefinition x WHERE x.id = :id", XmlAttributeDefinition.class);
             List<XmlAttributeDefinition> definitionList = query.setParameter("id", id).getResultList();
@@ -169,6 +197,7 @@ public class XmlAttributeDefinitionDao extends GenericDao<XmlAttributeDefinition
 
             throw e;
         } finally {
+            ReadOnlyMode.end(entityManager);
             entityManager.close();
         }
     }
@@ -180,15 +209,16 @@ public class XmlAttributeDefinitionDao extends GenericDao<XmlAttributeDefinition
      */
     @Override
     public XmlAttributeDefinition findByName(XmlTagDefinition parent, String name) throws RuntimeException {
-        EntityManager entityManager = EntityManagerListener.createEntityManager();
+        EntityManager entityManager = EntityManagerListener.createEntityManager(getClass(), "findByName");
         EntityTransaction transaction = null;
 
         try {
             transaction = entityManager.getTransaction();
-            transaction.begin();
+            ReadOnlyMode.begin(entityManager, transaction);
             TypedQuery<XmlAttributeDefinition> query = entityManager.createQuery("SELECT x " +
                             "FROM XmlAttributeDefinition x WHERE x.tagDefinition = :tagDefinition AND x.name = :name",
                     XmlAttributeDefinition.class);
+            setCacheable(query, "query.XmlDefinition");
             List<XmlAttributeDefinition> definitionList = query.setParameter("tagDefinition", parent)
                     .setParameter("name", name).getResultList();
             transaction.commit();
@@ -207,6 +237,7 @@ public class XmlAttributeDefinitionDao extends GenericDao<XmlAttributeDefinition
 
             throw e;
         } finally {
+            ReadOnlyMode.end(entityManager);
             entityManager.close();
         }
     }
@@ -218,12 +249,12 @@ public class XmlAttributeDefinitionDao extends GenericDao<XmlAttributeDefinition
      */
     @Override
     public XmlAttributeDefinition findFirst(XmlTagDefinition parent) throws RuntimeException {
-        EntityManager entityManager = EntityManagerListener.createEntityManager();
+        EntityManager entityManager = EntityManagerListener.createEntityManager(getClass(), "findFirst");
         EntityTransaction transaction = null;
 
         try {
             transaction = entityManager.getTransaction();
-            transaction.begin();
+            ReadOnlyMode.begin(entityManager, transaction);
             TypedQuery<XmlAttributeDefinition> query = entityManager.createQuery("SELECT x " +
                             "FROM XmlAttributeDefinition x WHERE x.tagDefinition = :tagDefinition ORDER BY x.name",
                     XmlAttributeDefinition.class);
@@ -245,6 +276,7 @@ public class XmlAttributeDefinitionDao extends GenericDao<XmlAttributeDefinition
 
             throw e;
         } finally {
+            ReadOnlyMode.end(entityManager);
             entityManager.close();
         }
     }
@@ -257,15 +289,16 @@ public class XmlAttributeDefinitionDao extends GenericDao<XmlAttributeDefinition
     @Override
     @SuppressWarnings("unchecked")
     public List<XmlAttributeDefinition> findAll(XmlTagDefinition parent) throws RuntimeException {
-        EntityManager entityManager = EntityManagerListener.createEntityManager();
+        EntityManager entityManager = EntityManagerListener.createEntityManager(getClass(), "findAll");
         EntityTransaction transaction = null;
 
         try {
             transaction = entityManager.getTransaction();
-            transaction.begin();
+            ReadOnlyMode.begin(entityManager, transaction);
             TypedQuery<XmlAttributeDefinition> query = entityManager.createQuery("SELECT x " +
                             "FROM XmlAttributeDefinition x WHERE x.tagDefinition = :tagDefinition ORDER BY x.name",
                     XmlAttributeDefinition.class);
+            setCacheable(query, "query.XmlDefinition");
             List<XmlAttributeDefinition> definitionList = query.setParameter("tagDefinition", parent).getResultList();
             transaction.commit();
             return definitionList;
@@ -278,6 +311,7 @@ public class XmlAttributeDefinitionDao extends GenericDao<XmlAttributeDefinition
 
             throw e;
         } finally {
+            ReadOnlyMode.end(entityManager);
             entityManager.close();
         }
     }
@@ -1,7 +1,9 @@
 package altlombardisch.xml.document;
 
+import altlombardisch.data.IdGenerator;
 import altlombardisch.xml.tag.XmlTagDefinition;
 import org.hibernate.annotations.*;
+import org.hibernate.annotations.Cache;
 
 import javax.persistence.CascadeType;
 import javax.persistence.*;
@@ -10,21 +12,31 @@ import javax.persistence.Index;
 import javax.persistence.OrderBy;
 import javax.persistence.Table;
 import java.io.Serializable;
-import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 /**
  * Represents the definition of a XML document.
  */
 @BatchSize(size = 20)
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@Cacheable
 @DynamicUpdate
 @Entity
+@NamedEntityGraph(name = XmlDocumentDefinition.TAG_TREE_GRAPH, attributeNodes = {
+        @NamedAttributeNode(value = "tagDefinitions", subgraph = "tagDefinitions") }, subgraphs = {
+        @NamedSubgraph(name = "tagDefinitions", attributeNodes = { @NamedAttributeNode("attributeDefinitions") }) })
 @OptimisticLocking(type = OptimisticLockType.VERSION)
-@SelectBeforeUpdate
 @Table(name = "xml_document_definition", indexes = {
         @Index(columnList = "uuid", unique = true),
         @Index(columnList = "identifier", unique = true) })
 public class XmlDocumentDefinition implements Serializable {
+    /**
+     * Name of the entity graph loading a document definition with its tag definitions and their attribute
+     * definitions.
+     */
+    public static final String TAG_TREE_GRAPH = "XmlDocumentDefinition.tagTree";
+
     /**
      * Determines if a deserialized file is compatible with this class.
      */
@@ -34,7 +46,10 @@ public class XmlDocumentDefinition implements Serializable {
      * ID associated with a document definition.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "xml_document_definition")
+    @TableGenerator(name = "xml_document_definition", table = IdGenerator.TABLE,
+            pkColumnName = IdGenerator.SEGMENT_COLUMN, valueColumnName = IdGenerator.VALUE_COLUMN,
+            pkColumnValue = "xml_document_definition", allocationSize = IdGenerator.ALLOCATION_SIZE)
     private Integer id;
 
     /**
@@ -63,23 +78,30 @@ public class XmlDocumentDefinition implements Serializable {
     private String rootElement;
 
     /**
-     * Schema definition which describes the structure of a XML document.
+     * Schema definition which describes the structure of a XML document. It is loaded lazily, so that loading a
+     * document definition as association doesn’t read it.
      */
+    @Basic(fetch = FetchType.LAZY)
     @Column(name = "\"schema\"", columnDefinition = "TEXT", length = 65535)
+    @LazyGroup("schema")
     private String schema;
 
     /**
-     * Stylesheet for transforming XML document into XHTML.
+     * Stylesheet for transforming XML document into XHTML. It is loaded lazily, so that loading a document
+     * definition as association doesn’t read it.
      */
+    @Basic(fetch = FetchType.LAZY)
     @Column(name = "\"xsl\"", columnDefinition = "TEXT", length = 65535)
+    @LazyGroup("xsl")
     private String xsl;
 
     /**
-     * A list of definitions for child tags.
+     * An ordered set of definitions for child tags. It is a set, so that it can be fetched together with the
+     * attribute definitions of the tags.
      */
     @OneToMany(mappedBy = "documentDefinition", fetch = FetchType.LAZY, cascade = CascadeType.ALL)
     @OrderBy("name")
-    private List<XmlTagDefinition> tagDefinitions;
+    private Set<XmlTagDefinition> tagDefinitions;
 
     /**
      * Creates an instance of a XML document definition.
@@ -131,8 +153,7 @@ public class XmlDocumentDefinition implements Serializable {
      * 
      * @return Version number of a document definition.
      */
-    @SuppressWarnings("unused")
-    private Long getVersion() {
+    public Long getVersion() {
         return version;
     }
 
@@ -226,9 +247,9 @@ public class XmlDocumentDefinition implements Serializable {
     /**
      * Returns the definitions for child tags.
      * 
-     * @return A list of tag definitions.
+     * @return An ordered set of tag definitions.
      */
-    public List<XmlTagDefinition> getTagDefinitions() {
+    public Set<XmlTagDefinition> getTagDefinitions() {
         return tagDefinitions;
     }
 
@@ -236,9 +257,9 @@ public class XmlDocumentDefinition implements Serializable {
      * Sets the definitions for child tags.
      * 
      * @param tagDefinitions
-     *            a list of tag definitions
+     *            an ordered set of tag definitions
      */
-    public void setTagDefinitions(List<XmlTagDefinition> tagDefinitions) {
+    public void setTagDefinitions(Set<XmlTagDefinition> tagDefinitions) {
         this.tagDefinitions = tagDefinitions;
     }
 
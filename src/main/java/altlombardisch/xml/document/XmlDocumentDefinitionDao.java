@@ -2,6 +2,7 @@ package altlombardisch.xml.document;
 
 import altlombardisch.data.EntityManagerListener;
 import altlombardisch.data.GenericDao;
+import altlombardisch.data.ReadOnlyMode;
 import altlombardisch.xml.XmlHelper;
 import org.hibernate.StaleObjectStateException;
 import org.hibernate.UnresolvableObjectException;
@@ -37,24 +38,50 @@ public class XmlDocumentDefinitionDao extends GenericDao<XmlDocumentDefinition>
         return definition.getId() == null;
     }
 
+    /**
+     * Sets a UUID before a document definition is persisted.
+     *
+     * @param entityManager entity manager with an active transaction
+     * @param definition    a document definition
+     */
+    @Override
+    protected void persistEntity(EntityManager entityManager, XmlDocumentDefinition definition) {
+        if (definition.getUuid() == null) {
+            definition.setUuid(UUID.randomUUID().toString());
+        }
+
+        entityManager.persist(definition);
+    }
+
+    /**
+     * Merges a document definition. It is merged instead of updated, because updating would reattach its tag
+     * definitions and write each of them. A managed instance loaded in read-only mode is detached first.
+     *
+     * @param entityManager entity manager with an active transaction
+     * @param definition    a document definition
+     * @return The merged document definition.
+     */
+    @Override
+    protected XmlDocumentDefinition mergeEntity(EntityManager entityManager, XmlDocumentDefinition definition) {
+        ReadOnlyMode.release(entityManager, definition);
+        return entityManager.merge(definition);
+    }
+
     /**
      * {@inheritDoc}
      *
      * @throws RuntimeException
      */
     public void persist(XmlDocumentDefinition definition) throws RuntimeException {
-        EntityManager entityManager = EntityManagerListener.createEntityManager();
+        EntityManager entityManager = EntityManagerListener.createEntityManager(getClass(), "persist");
         EntityTransaction transaction = null;
 
-        if (definition.getUuid() == null) {
-            definition.setUuid(UUID.randomUUID().toString());
-        }
-
         try {
             transaction = entityManager.getTransaction();
             transaction.begin();
-            entityManager.persist(definition);
+            persistEntity(entityManager, definition);
             transaction.commit();
+            fireWrite();
         } catch (RuntimeException e) {
             e.printStackTrace();
 
@@ -82,7 +109,7 @@ public class XmlDocumentDefinitionDao extends GenericDao<XmlDocumentDefinition>
     @Override
     public void initialize() throws RuntimeException {
         for (String identifier : IDENTIFIERS) {
-            EntityManager entityManager = EntityManagerListener.createEntityManager();
+            EntityManager entityManager = EntityManagerListener.createEntityManager(getClass(), "initialize");
             EntityTransaction transaction = null;
             XmlDocumentDefinition definition = null;
 
@@ -109,6 +136,7 @@ public class XmlDocumentDefinitionDao extends GenericDao<XmlDocumentDefinition>
                 definition.setUuid(UUID.randomUUID().toString());
                 entityManager.persist(definition);
                 transaction.commit();
+                fireWrite();
             } catch (RuntimeException e) {
                 e.printStackTrace();
 
@@ -129,6 +157,19 @@ public class XmlDocumentDefinitionDao extends GenericDao<XmlDocumentDefinition>
         }
     }
 
+    /**
+     * Loads the lazy schema and stylesheet of a document definition within a running transaction. Document
+     * definitions returned by this DAO need both, but those taken from the second-level cache or already managed
+     * without them may lack them.
+     *
+     * @param definition a document definition
+     */
+    @Override
+    protected void initializeLazyAttributes(XmlDocumentDefinition definition) {
+        definition.getSchema();
+        definition.getXsl();
+    }
+
     /**
      * {@inheritDoc}
      *
@@ -136,15 +177,16 @@ public class XmlDocumentDefinitionDao extends GenericDao<XmlDocumentDefinition>
      */
     @Override
     public XmlDocumentDefinition findById(Integer id) throws RuntimeException {
-        EntityManager entityManager = EntityManagerListener.createEntityManager();
+        EntityManager entityManager = EntityManagerListener.createEntityManager(getClass(), "findById");
         EntityTransaction transaction = null;
 
         try {
             transaction = entityManager.getTransaction();
-            transaction.begin();
+            ReadOnlyMode.begin(entityManager, transaction);
             TypedQuery<XmlDocumentDefinition> query = entityManager.createQuery("SELECT x " +
-                    "FROM XmlDocumentDefinition x WHERE x.id = :id", XmlDocumentDefinition.class);
+                    "FROM XmlDocumentDefinition x FETCH ALL PROPERTIES WHERE x.id = :id", XmlDocumentDefinition.class);
             List<XmlDocumentDefinition> definitionList = query.setParameter("id", id).getResultList();
+            definitionList.forEach(this::initializeLazyAttributes);
             transaction.commit();
 
             if (definitionList.isEmpty()) {
@@ -161,6 +203,7 @@ public class XmlDocumentDefinitionDao extends GenericDao<XmlDocumentDefinition>
 
             throw e;
         } finally {
+            ReadOnlyMode.end(entityManager);
             entityManager.close();
         }
     }
@@ -172,15 +215,18 @@ public class XmlDocumentDefinitionDao extends GenericDao<XmlDocumentDefinition>
      */
     @Override
     public XmlDocumentDefinition findByIdentifier(String identifier) throws RuntimeException {
-        EntityManager entityManager = EntityManagerListener.createEntityManager();
+        EntityManager entityManager = EntityManagerListener.createEntityManager(getClass(), "findByIdentifier");
         EntityTransaction transaction = null;
 
         try {
             transaction = entityManager.getTransaction();
-            transaction.begin();
+            ReadOnlyMode.begin(entityManager, transaction);
             TypedQuery<XmlDocumentDefinition> query = entityManager.createQuery("SELECT x " +
-                    "FROM XmlDocumentDefinition x WHERE x.identifier = :identifier", XmlDocumentDefinition.class);
+                    "FROM XmlDocumentDefinition x FETCH ALL PROPERTIES WHERE x.identifier = :identifier",
+                    XmlDocumentDefinition.class);
+            setCacheable(query, "query.XmlDefinition");
             List<XmlDocumentDefinition> definitionList = query.setParameter("identifier", identifier).getResultList();
+            definitionList.forEach(this::initializeLazyAttributes);
             transaction.commit();
 
             if (definitionList.isEmpty()) {
@@ -197,6 +243,7 @@ public class XmlDocumentDefinitionDao extends GenericDao<XmlDocumentDefinition>
 
             throw e;
         } finally {
+            ReadOnlyMode.end(entityManager);
             entityManager.close();
         }
     }
@@ -208,16 +255,17 @@ public class XmlDocumentDefinitionDao extends GenericDao<XmlDocumentDefinition>
      */
     @Override
     public XmlDocumentDefinition findFirst() throws RuntimeException {
-        EntityManager entityManager = EntityManagerListener.createEntityManager();
+        EntityManager entityManager = EntityManagerListener.createEntityManager(getClass(), "findFirst");
         EntityTransaction transaction = null;
 
         try {
             transaction = entityManager.getTransaction();
-            transaction.begin();
+            ReadOnlyMode.begin(entityManager, transaction);
             TypedQuery<XmlDocumentDefinition> query = entityManager.createQuery("SELECT x " +
-                            "FROM XmlDocumentDefinition x ORDER BY x.identifier",
+                            "FROM XmlDocumentDefinition x FETCH ALL PROPERTIES ORDER BY x.identifier",
                     XmlDocumentDefinition.class);
             List<XmlDocumentDefinition> definitionList = query.setFirstResult(0).setMaxResults(1).getResultList();
+            definitionList.forEach(this::initializeLazyAttributes);
             transaction.commit();
 
             if (definitionList.isEmpty()) {
@@ -234,6 +282,7 @@ public class XmlDocumentDefinitionDao extends GenericDao<XmlDocumentDefinition>
 
             throw e;
         } finally {
+            ReadOnlyMode.end(entityManager);
             entityManager.close();
         }
     }
@@ -246,15 +295,18 @@ public class XmlDocumentDefinitionDao extends GenericDao<XmlDocumentDefinition>
     @Override
     @SuppressWarnings("unchecked")
     public List<XmlDocumentDefinition> findAll() throws RuntimeException {
-        EntityManager entityManager = EntityManagerListener.createEntityManager();
+        EntityManager entityManager = EntityManagerListener.createEntityManager(getClass(), "findAll");
         EntityTransaction transaction = null;
 
         try {
             transaction = entityManager.getTransaction();
-            transaction.begin();
+            ReadOnlyMode.begin(entityManager, transaction);
             TypedQuery<XmlDocumentDefinition> query = entityManager.createQuery("SELECT x " +
-                    "FROM XmlDocumentDefinition x ORDER BY x.identifier", XmlDocumentDefinition.class);
+                    "FROM XmlDocumentDefinition x FETCH ALL PROPERTIES ORDER BY x.identifier",
+                    XmlDocumentDefinition.class);
+            setCacheable(query, "query.XmlDefinition");
             List<XmlDocumentDefinition> definitionList = query.getResultList();
+            definitionList.forEach(this::initializeLazyAttributes);
             transaction.commit();
             return definitionList;
         } catch (RuntimeException e) {
@@ -266,6 +318,7 @@ public class XmlDocumentDefinitionDao extends GenericDao<XmlDocumentDefinition>
 
             throw e;
         } finally {
+            ReadOnlyMode.end(entityManager);
             entityManager.close();
         }
     }
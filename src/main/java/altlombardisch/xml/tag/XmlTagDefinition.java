@@ -1,8 +1,10 @@
 package altlombardisch.xml.tag;
 
+import altlombardisch.data.IdGenerator;
 import altlombardisch.xml.attribute.XmlAttributeDefinition;
 import altlombardisch.xml.document.XmlDocumentDefinition;
 import org.hibernate.annotations.*;
+import org.hibernate.annotations.Cache;
 
 import javax.persistence.CascadeType;
 import javax.persistence.*;
@@ -11,17 +13,18 @@ import javax.persistence.Index;
 import javax.persistence.OrderBy;
 import javax.persistence.Table;
 import java.io.Serializable;
-import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 /**
  * Represents the definition of a XML tag.
  */
 @BatchSize(size = 20)
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@Cacheable
 @DynamicUpdate
 @Entity
 @OptimisticLocking(type = OptimisticLockType.VERSION)
-@SelectBeforeUpdate
 @Table(name = "xml_tag_definition", indexes = {
         @Index(columnList = "uuid", unique = true),
         @Index(columnList = "document_definition_id, name", unique = true) })
@@ -35,7 +38,10 @@ public class XmlTagDefinition implements Serializable {
      * ID associated with a tag definition.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "xml_tag_definition")
+    @TableGenerator(name = "xml_tag_definition", table = IdGenerator.TABLE,
+            pkColumnName = IdGenerator.SEGMENT_COLUMN, valueColumnName = IdGenerator.VALUE_COLUMN,
+            pkColumnValue = "xml_tag_definition", allocationSize = IdGenerator.ALLOCATION_SIZE)
     private Integer id;
 
     /**
@@ -71,11 +77,11 @@ public class XmlTagDefinition implements Serializable {
     private Boolean selfClosing;
 
     /**
-     * A list of definitions for child attributes.
+     * An ordered set of definitions for child attributes.
      */
     @OneToMany(mappedBy = "tagDefinition", fetch = FetchType.LAZY, cascade = CascadeType.ALL)
     @OrderBy("name")
-    private List<XmlAttributeDefinition> attributeDefinitions;
+    private Set<XmlAttributeDefinition> attributeDefinitions;
 
     /**
      * Creates an instance of a XML tag definition.
@@ -203,9 +209,9 @@ public class XmlTagDefinition implements Serializable {
     /**
      * Returns the definitions for child attributes.
      * 
-     * @return A list of attribute definitions.
+     * @return An ordered set of attribute definitions.
      */
-    public List<XmlAttributeDefinition> getAttributeDefinitions() {
+    public Set<XmlAttributeDefinition> getAttributeDefinitions() {
         return attributeDefinitions;
     }
 
@@ -213,10 +219,10 @@ public class XmlTagDefinition implements Serializable {
      * Sets the definitions for child attributes.
      * 
      * @param attributeDefinitions
-     *            a list of attribute definitions
+     *            an ordered set of attribute definitions
      */
     public void setAttributeDefinitions(
-            List<XmlAttributeDefinition> attributeDefinitions) {
+            Set<XmlAttributeDefinition> attributeDefinitions) {
         this.attributeDefinitions = attributeDefinitions;
     }
 
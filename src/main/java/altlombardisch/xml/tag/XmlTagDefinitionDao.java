@@ -2,6 +2,7 @@ package altlombardisch.xml.tag;
 
 import altlombardisch.data.EntityManagerListener;
 import altlombardisch.data.GenericDao;
+import altlombardisch.data.ReadOnlyMode;
 import altlombardisch.xml.document.XmlDocumentDefinition;
 import org.hibernate.StaleObjectStateException;
 import org.hibernate.UnresolvableObjectException;
@@ -33,24 +34,50 @@ public class XmlTagDefinitionDao extends GenericDao<XmlTagDefinition> implements
         return definition.getId() == null;
     }
 
+    /**
+     * Sets a UUID before a tag definition is persisted.
+     *
+     * @param entityManager entity manager with an active transaction
+     * @param definition    a tag definition
+     */
+    @Override
+    protected void persistEntity(EntityManager entityManager, XmlTagDefinition definition) {
+        if (definition.getUuid() == null) {
+            definition.setUuid(UUID.randomUUID().toString());
+        }
+
+        entityManager.persist(definition);
+    }
+
+    /**
+     * Merges a tag definition. It is merged instead of updated, because updating would reattach its attribute
+     * definitions and write each of them. A managed instance loaded in read-only mode is detached first.
+     *
+     * @param entityManager entity manager with an active transaction
+     * @param definition    a tag definition
+     * @return The merged tag definition.
+     */
+    @Override
+    protected XmlTagDefinition mergeEntity(EntityManager entityManager, XmlTagDefinition definition) {
+        ReadOnlyMode.release(entityManager, definition);
+        return entityManager.merge(definition);
+    }
+
     /**
      * {@inheritDoc}
      *
      * @throws RuntimeException
      */
     public void persist(XmlTagDefinition definition) throws RuntimeException {
-        EntityManager entityManager = EntityManagerListener.createEntityManager();
+        EntityManager entityManager = EntityManagerListener.createEntityManager(getClass(), "persist");
         EntityTransaction transaction = null;
 
-        if (definition.getUuid() == null) {
-            definition.setUuid(UUID.randomUUID().toString());
-        }
-
         try {
             transaction = entityManager.getTransaction();
             transaction.begin();
-            entityManager.persist(definition);
+            persistEntity(entityManager, definition);
             transaction.commit();
+            fireWrite();
         } catch (RuntimeException e) {
             e.printStackTrace();
 
@@ -76,14 +103,15 @@ public class XmlTagDefinitionDao extends GenericDao<XmlTagDefinition> implements
      * @throws RuntimeException
      */
     public XmlTagDefinition merge(XmlTagDefinition definition) throws RuntimeException {
-        EntityManager entityManager = EntityManagerListener.createEntityManager();
+        EntityManager entityManager = EntityManagerListener.createEntityManager(getClass(), "merge");
         EntityTransaction transaction = null;
 
         try {
             transaction = entityManager.getTransaction();
             transaction.begin();
-            XmlTagDefinition mergedDefinition = entityManager.merge(definition);
+            XmlTagDefinition mergedDefinition = mergeEntity(entityManager, definition);
             transaction.commit();
+            fireWrite();
             return mergedDefinition;
         } catch (RuntimeException e) {
             e.printStackTrace();
@@ -106,6 +134,20 @@ public class XmlTagDefinitionDao extends GenericDao<XmlTagDefinition> implements
         }
     }
 
+    /**
+     * Removes a tag definition from its parent document definition before it is removed.
+     *
+     * @param entityManager entity manager with an active transaction
+     * @param definition    a tag definition
+     */
+    @Override
+    protected void removeEntity(EntityManager entityManager, XmlTagDefinition definition) {
+        XmlTagDefinition mergedDefinition = entityManager.merge(definition);
+
+        mergedDefinition.getDocumentDefinition().getTagDefinitions().remove(mergedDefinition);
+        entityManager.remove(mergedDefinition);
+    }
+
     /**
      * {@inheritDoc}
      *
@@ -113,17 +155,15 @@ public class XmlTagDefinitionDao extends GenericDao<XmlTagDefinition> implements
      */
     @Override
     public void remove(XmlTagDefinition definition) throws RuntimeException {
-        EntityManager entityManager = EntityManagerListener.createEntityManager();
+        EntityManager entityManager = EntityManagerListener.createEntityManager(getClass(), "remove");
         EntityTransaction transaction = null;
 
         try {
             transaction = entityManager.getTransaction();
             transaction.begin();
-            XmlTagDefinition mergedDefinition = entityManager.merge(definition);
-
-            mergedDefinition.getDocumentDefinition().getTagDefinitions().remove(mergedDefinition);
-            entityManager.remove(mergedDefinition);
+            removeEntity(entityManager, definition);
             transaction.commit();
+            fireWrite();
         } catch (RuntimeException e) {
             e.printStackTrace();
 
@@ -144,12 +184,12 @@ public class XmlTagDefinitionDao extends GenericDao<XmlTagDefinition> implements
      */
     @Override
     public XmlTagDefinition findById(Integer id) throws RuntimeException {
-        EntityManager entityManager = EntityManagerListener.createEntityManager();
+        EntityManager entityManager = EntityManagerListener.createEntityManager(getClass(), "findById");
         EntityTransaction transaction = null;
 
         try {
             transaction = entityManager.getTransaction();
-            transaction.begin();
+            ReadOnlyMode.begin(entityManager, transaction);
             TypedQuery<XmlTagDefinition> query = entityManager.createQuery("SELECT x " +
                     "FROM XmlTagDefinition x WHERE x.id = :id", XmlTagDefinition.class);
             List<XmlTagDefinition> definitionList = query.setParameter("id", id).getResultList();
@@ -169,6 +209,7 @@ public class XmlTagDefinitionDao extends GenericDao<XmlTagDefinition> implements
 
             throw e;
         } finally {
+            ReadOnlyMode.end(entityManager);
             entityManager.close();
         }
     }
@@ -180,15 +221,16 @@ public class XmlTagDefinitionDao extends GenericDao<XmlTagDefinition> implements
      */
     @Override
     public XmlTagDefinition findByName(XmlDocumentDefinition parent, String name) throws RuntimeException {
-        EntityManager entityManager = EntityManagerListener.createEntityManager();
+        EntityManager entityManager = EntityManagerListener.createEntityManager(getClass(), "findByName");
         EntityTransaction transaction = null;
 
         try {
             transaction = entityManager.getTransaction();
-            transaction.begin();
+            ReadOnlyMode.begin(entityManager, transaction);
             TypedQuery<XmlTagDefinition> query = entityManager.createQuery("SELECT x FROM XmlTagDefinition x " +
                             "WHERE x.documentDefinition = :documentDefinition AND x.name = :name",
                     XmlTagDefinition.class);
+            setCacheable(query, "query.XmlDefinition");
             List<XmlTagDefinition> definitionList = query.setParameter("documentDefinition", parent)
                     .setParameter("name", name).getResultList();
             transaction.commit();
@@ -207,6 +249,7 @@ public class XmlTagDefinitionDao extends GenericDao<XmlTagDefinition> implements
 
             throw e;
         } finally {
+            ReadOnlyMode.end(entityManager);
             entityManager.close();
         }
     }
@@ -218,12 +261,12 @@ public class XmlTagDefinitionDao extends GenericDao<XmlTagDefinition> implements
      */
     @Override
     public XmlTagDefinition findFirst(XmlDocumentDefinition parent) throws RuntimeException {
-        EntityManager entityManager = EntityManagerListener.createEntityManager();
+        EntityManager entityManager = EntityManagerListener.createEntityManager(getClass(), "findFirst");
         EntityTransaction transaction = null;
 
         try {
             transaction = entityManager.getTransaction();
-            transaction.begin();
+            ReadOnlyMode.begin(entityManager, transaction);
             TypedQuery<XmlTagDefinition> query = entityManager.createQuery("SELECT x " +
                             "FROM XmlTagDefinition x WHERE x.documentDefinition = :documentDefinition ORDER BY x.name",
                     XmlTagDefinition.class);
@@ -245,6 +288,7 @@ public class XmlTagDefinitionDao extends GenericDao<XmlTagDefinition> implements
 
             throw e;
         } finally {
+            ReadOnlyMode.end(entityManager);
             entityManager.close();
         }
     }
@@ -257,15 +301,16 @@ public class XmlTagDefinitionDao extends GenericDao<XmlTagDefinition> implements
     @Override
     @SuppressWarnings("unchecked")
     public List<XmlTagDefinition> findAll(XmlDocumentDefinition parent) throws RuntimeException {
-        EntityManager entityManager = EntityManagerListener.createEntityManager();
+        EntityManager entityManager = EntityManagerListener.createEntityManager(getClass(), "findAll");
         EntityTransaction transaction = null;
 
         try {
             transaction = entityManager.getTransaction();
-            transaction.begin();
+            ReadOnlyMode.begin(entityManager, transaction);
             TypedQuery<XmlTagDefinition> query = entityManager.createQuery("SELECT x " +
                             "FROM XmlTagDefinition x WHERE x.documentDefinition = :documentDefinition ORDER BY x.name",
                     XmlTagDefinition.class);
+            setCacheable(query, "query.XmlDefinition");
             List<XmlTagDefinition> definitionList = query.setParameter("documentDefinition", parent).getResultList();
             transaction.commit();
             return definitionList;
@@ -278,6 +323,7 @@ public class XmlTagDefinitionDao extends GenericDao<XmlTagDefinition> implements
 
             throw e;
         } finally {
+            ReadOnlyMode.end(entityManager);
             entityManager.close();
         }
     }
@@ -0,0 +1,18 @@
+-- Creates the ID generator table for databases validated with hbm2ddl.auto=validate.
+-- Run once before deploying a version with table-backed ID generation. Existing IDs are kept;
+-- the application raises next_val above the highest existing ID on every start.
+CREATE TABLE IF NOT EXISTS id_generator (
+  entity VARCHAR(255) NOT NULL,
+  next_val BIGINT,
+  PRIMARY KEY (entity)
+) ENGINE=InnoDB;
+
+INSERT INTO id_generator (entity, next_val) SELECT 'character', COALESCE(MAX(id), 0) + 1 FROM `character`;
+INSERT INTO id_generator (entity, next_val) SELECT 'siglum', COALESCE(MAX(id), 0) + 1 FROM siglum;
+INSERT INTO id_generator (entity, next_val) SELECT 'user', COALESCE(MAX(id), 0) + 1 FROM user;
+INSERT INTO id_generator (entity, next_val)
+  SELECT 'xml_attribute_definition', COALESCE(MAX(id), 0) + 1 FROM xml_attribute_definition;
+INSERT INTO id_generator (entity, next_val)
+  SELECT 'xml_document_definition', COALESCE(MAX(id), 0) + 1 FROM xml_document_definition;
+INSERT INTO id_generator (entity, next_val)
+  SELECT 'xml_tag_definition', COALESCE(MAX(id), 0) + 1 FROM xml_tag_definition;